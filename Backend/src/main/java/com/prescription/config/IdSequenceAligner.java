@@ -0,0 +1,60 @@
+package com.prescription.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Moves id sequences past ids that are already in their tables.
+ *
+ * Prescription rows used identity columns before they moved to pooled sequences,
+ * so on an existing database the new sequences start below the stored ids. This
+ * runs after the schema update and before the web server starts, and only ever
+ * moves a sequence forward.
+ */
+@Slf4j
+@Component
+public class IdSequenceAligner {
+
+    // Must match allocationSize on the entities' @SequenceGenerator
+    private static final int ALLOCATION_SIZE = 50;
+
+    private static final Map<String, String> SEQUENCES_BY_TABLE = Map.of(
+            "prescriptions", "prescriptions_seq",
+            "prescription_medicines", "prescription_medicines_seq",
+            "medicine_timings", "medicine_timings_seq"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Dialect dialect;
+
+    public IdSequenceAligner(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+    }
+
+    @PostConstruct
+    public void align() {
+        for (Map.Entry<String, String> entry : SEQUENCES_BY_TABLE.entrySet()) {
+            String table = entry.getKey();
+            String sequence = entry.getValue();
+
+            Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            Long next = jdbcTemplate.queryForObject(
+                    dialect.getSequenceSupport().getSequenceNextValString(sequence), Long.class);
+
+            // The pooled optimizer hands out the block ending at the value it reads
+            if (maxId != null && next != null && next - ALLOCATION_SIZE < maxId) {
+                long restart = maxId + ALLOCATION_SIZE + 1;
+                jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + restart);
+                log.info("Moved sequence {} to {} past existing {} ids", sequence, restart, table);
+            }
+        }
+    }
+}
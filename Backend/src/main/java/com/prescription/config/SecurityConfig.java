@@ -62,6 +62,7 @@ public class SecurityConfig {
         ));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "HEAD"));
         configuration.setAllowedHeaders(List.of("*"));
+        configuration.setExposedHeaders(List.of("X-Next-Cursor", "ETag"));
         configuration.setAllowCredentials(false); // Set to false when using "*" origin
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
@@ -0,0 +1,56 @@
+package com.prescription.config;
+
+import com.prescription.repository.HospitalRepository;
+import com.prescription.repository.MedicineGenericRepository;
+import com.prescription.repository.MedicineRepository;
+import com.prescription.search.JpqlTextSearchBackend;
+import com.prescription.search.PostgresTextSearchBackend;
+import com.prescription.search.TextSearchBackend;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Chooses the text search backend. With app.search.backend=auto (the default) the
+ * PostgreSQL backend is used when the datasource is PostgreSQL and JPQL otherwise;
+ * "postgres" or "jpql" force one.
+ */
+@Slf4j
+@Configuration
+public class TextSearchConfig {
+
+    @Bean
+    public TextSearchBackend textSearchBackend(@Value("${app.search.backend:auto}") String backend,
+                                               DataSource dataSource,
+                                               JdbcTemplate jdbcTemplate,
+                                               MedicineRepository medicineRepository,
+                                               MedicineGenericRepository medicineGenericRepository,
+                                               HospitalRepository hospitalRepository) {
+        TextSearchBackend jpql = new JpqlTextSearchBackend(
+                medicineRepository, medicineGenericRepository, hospitalRepository);
+
+        boolean postgres = switch (backend.trim().toLowerCase()) {
+            case "postgres" -> true;
+            case "jpql" -> false;
+            case "auto" -> isPostgres(dataSource);
+            default -> throw new IllegalStateException("Unknown app.search.backend: " + backend);
+        };
+        log.info("Text search backend: {}", postgres ? "postgres" : "jpql");
+        return postgres ? new PostgresTextSearchBackend(jdbcTemplate, jpql) : jpql;
+    }
+
+    private static boolean isPostgres(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            return "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+        } catch (SQLException e) {
+            log.warn("Could not detect database type, using JPQL search: {}", e.getMessage());
+            return false;
+        }
+    }
+}
@@ -1,24 +1,156 @@
 package com.prescription.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
+/**
+ * STOMP over WebSocket.
+ *
+ * With app.websocket.broker.mode=simple (the default) subscriptions live in an
+ * in-memory broker, which only reaches sockets on this instance. With "relay"
+ * /topic and /queue are relayed to an external STOMP broker (RabbitMQ, ActiveMQ),
+ * and unresolved user destinations and the user registry are broadcast through it,
+ * so convertAndSendToUser reaches the user's socket on any instance.
+ */
 @Configuration
 @EnableWebSocketMessageBroker
 @CrossOrigin(origins = "*")
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    @Autowired
+    private WebSocketMetrics webSocketMetrics;
+
+    @Autowired
+    @Lazy
+    @Qualifier("messageBrokerTaskScheduler")
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    @Value("${app.websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${app.websocket.broker.heartbeat-ms:10000}")
+    private long heartbeatMillis;
+
+    @Value("${app.websocket.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${app.websocket.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${app.websocket.broker.relay.client-login:guest}")
+    private String relayClientLogin;
+
+    @Value("${app.websocket.broker.relay.client-passcode:guest}")
+    private String relayClientPasscode;
+
+    @Value("${app.websocket.broker.relay.system-login:guest}")
+    private String relaySystemLogin;
+
+    @Value("${app.websocket.broker.relay.system-passcode:guest}")
+    private String relaySystemPasscode;
+
+    @Value("${app.websocket.broker.relay.virtual-host:}")
+    private String relayVirtualHost;
+
+    @Value("${app.websocket.inbound.core-pool-size:16}")
+    private int inboundCorePoolSize;
+
+    @Value("${app.websocket.inbound.max-pool-size:64}")
+    private int inboundMaxPoolSize;
+
+    @Value("${app.websocket.inbound.queue-capacity:10000}")
+    private int inboundQueueCapacity;
+
+    @Value("${app.websocket.outbound.core-pool-size:16}")
+    private int outboundCorePoolSize;
+
+    @Value("${app.websocket.outbound.max-pool-size:64}")
+    private int outboundMaxPoolSize;
+
+    @Value("${app.websocket.outbound.queue-capacity:10000}")
+    private int outboundQueueCapacity;
+
+    @Value("${app.websocket.transport.send-time-limit-ms:15000}")
+    private int sendTimeLimitMillis;
+
+    @Value("${app.websocket.transport.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    @Value("${app.websocket.transport.message-size-limit:65536}")
+    private int messageSizeLimit;
+
+    @Value("${app.websocket.transport.time-to-first-message-ms:30000}")
+    private int timeToFirstMessageMillis;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic", "/queue"); // broker
+        switch (brokerMode.trim().toLowerCase()) {
+            case "simple" -> config.enableSimpleBroker("/topic", "/queue")
+                    .setTaskScheduler(messageBrokerTaskScheduler)
+                    .setHeartbeatValue(new long[]{heartbeatMillis, heartbeatMillis});
+            case "relay" -> {
+                StompBrokerRelayRegistration relay = config.enableStompBrokerRelay("/topic", "/queue")
+                        .setRelayHost(relayHost)
+                        .setRelayPort(relayPort)
+                        .setClientLogin(relayClientLogin)
+                        .setClientPasscode(relayClientPasscode)
+                        .setSystemLogin(relaySystemLogin)
+                        .setSystemPasscode(relaySystemPasscode)
+                        .setSystemHeartbeatSendInterval(heartbeatMillis)
+                        .setSystemHeartbeatReceiveInterval(heartbeatMillis)
+                        // Lets each instance deliver to users connected to another instance
+                        .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                        .setUserRegistryBroadcast("/topic/simp-user-registry");
+                if (!relayVirtualHost.isBlank()) {
+                    relay.setVirtualHost(relayVirtualHost);
+                }
+            }
+            default -> throw new IllegalStateException("Unknown app.websocket.broker.mode: " + brokerMode);
+        }
         config.setApplicationDestinationPrefixes("/api");
         config.setUserDestinationPrefix("/user");
     }
 
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(inboundCorePoolSize)
+                .maxPoolSize(inboundMaxPoolSize)
+                .queueCapacity(inboundQueueCapacity);
+        registration.interceptors(webSocketMetrics.inboundInterceptor());
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(outboundCorePoolSize)
+                .maxPoolSize(outboundMaxPoolSize)
+                .queueCapacity(outboundQueueCapacity);
+        registration.interceptors(webSocketMetrics.outboundInterceptor());
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // A session that falls behind by more than the buffer or time limit is closed
+        // instead of holding messages for every other socket
+        registration.setSendTimeLimit(sendTimeLimitMillis)
+                .setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setMessageSizeLimit(messageSizeLimit)
+                .setTimeToFirstMessage(timeToFirstMessageMillis);
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         // SockJS endpoint with explicit origins
@@ -34,4 +166,4 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                         "*"
                 );
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,103 @@
+package com.prescription.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.broker.BrokerAvailabilityEvent;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.config.WebSocketMessageBrokerStats;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connection and message metrics for the STOMP endpoint: open sessions, connects,
+ * inbound and outbound message counts (rates come from the registry), and whether
+ * the broker is available.
+ */
+@Slf4j
+@Component
+public class WebSocketMetrics {
+
+    private final Set<String> openSessions = ConcurrentHashMap.newKeySet();
+    private final LongAdder connects = new LongAdder();
+    private final LongAdder inbound = new LongAdder();
+    private final LongAdder outbound = new LongAdder();
+    private volatile boolean brokerAvailable;
+
+    private final ObjectProvider<WebSocketMessageBrokerStats> brokerStats;
+    private final long statsLoggingPeriodMillis;
+
+    public WebSocketMetrics(MeterRegistry meterRegistry,
+                            ObjectProvider<WebSocketMessageBrokerStats> brokerStats,
+                            @Value("${app.websocket.stats.logging-period-ms:300000}") long statsLoggingPeriodMillis) {
+        this.brokerStats = brokerStats;
+        this.statsLoggingPeriodMillis = statsLoggingPeriodMillis;
+
+        Gauge.builder("websocket.sessions", openSessions, Set::size).register(meterRegistry);
+        Gauge.builder("websocket.broker.available", this, metrics -> metrics.brokerAvailable ? 1 : 0)
+                .register(meterRegistry);
+        FunctionCounter.builder("websocket.connects", connects, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("websocket.messages.inbound", inbound, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("websocket.messages.outbound", outbound, LongAdder::sum).register(meterRegistry);
+    }
+
+    public ChannelInterceptor inboundInterceptor() {
+        return new CountingInterceptor(inbound);
+    }
+
+    public ChannelInterceptor outboundInterceptor() {
+        return new CountingInterceptor(outbound);
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        String sessionId = (String) event.getMessage().getHeaders().get("simpSessionId");
+        if (sessionId != null && openSessions.add(sessionId)) {
+            connects.increment();
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        // May be published more than once per session
+        openSessions.remove(event.getSessionId());
+    }
+
+    @EventListener
+    public void onBrokerAvailability(BrokerAvailabilityEvent event) {
+        brokerAvailable = event.isBrokerAvailable();
+        log.info("STOMP broker {}", brokerAvailable ? "available" : "unavailable");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        // Looked up late; the stats bean depends on the broker configuration that uses this class
+        brokerStats.ifAvailable(stats -> stats.setLoggingPeriod(statsLoggingPeriodMillis));
+    }
+
+    private static class CountingInterceptor implements ChannelInterceptor {
+        private final LongAdder count;
+
+        CountingInterceptor(LongAdder count) {
+            this.count = count;
+        }
+
+        @Override
+        public Message<?> preSend(Message<?> message, MessageChannel channel) {
+            count.increment();
+            return message;
+        }
+    }
+}
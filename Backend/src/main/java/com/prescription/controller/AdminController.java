@@ -2,6 +2,9 @@ package com.prescription.controller;
 
 import com.prescription.dto.admin.*;
 import com.prescription.entity.Admin;
+import com.prescription.security.JwtAuthenticationFilter;
+import com.prescription.security.JwtClaimsCache;
+import com.prescription.security.JwtKeyRotation;
 import com.prescription.service.AdminService;
 import com.prescription.util.JwtUtil;
 import jakarta.servlet.http.Cookie;
@@ -34,6 +37,12 @@ public class AdminController {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private JwtClaimsCache jwtClaimsCache;
+
+    @Autowired
+    private JwtKeyRotation jwtKeyRotation;
+
     // ============ AUTHENTICATION ENDPOINTS ============
 
     /**
@@ -171,10 +180,23 @@ public class AdminController {
      * POST /api/admin/logout
      */
     @PostMapping("/logout")
-    public ResponseEntity<?> logout(HttpServletResponse response) {
+    public ResponseEntity<?> logout(HttpServletRequest request, HttpServletResponse response) {
         try {
             log.info("Admin logout request received");
 
+            // Reject the token from now on, not just drop the cookie
+            String token = JwtAuthenticationFilter.getJwtFromRequest(request);
+            if (token == null && request.getCookies() != null) {
+                for (Cookie cookie : request.getCookies()) {
+                    if ("adminJwt".equals(cookie.getName())) {
+                        token = cookie.getValue();
+                    }
+                }
+            }
+            if (token != null && !token.isEmpty()) {
+                jwtClaimsCache.revoke(token);
+            }
+
             // Clear JWT cookie
             Cookie jwtCookie = new Cookie("adminJwt", "");
             jwtCookie.setHttpOnly(true);
@@ -509,6 +531,23 @@ public class AdminController {
         return ResponseEntity.ok(exists);
     }
 
+    /**
+     * Apply the JWT key file now instead of waiting for the next reload
+     * POST /api/admin/jwt-keys/reload
+     */
+    @PostMapping("/jwt-keys/reload")
+    @PreAuthorize("hasRole('ROOT_ADMIN')")
+    public ResponseEntity<?> reloadJwtKeys(HttpServletRequest httpRequest) {
+        try {
+            String activeKeyId = jwtKeyRotation.reload();
+            log.info("JWT keys reloaded by admin ID: {}", httpRequest.getAttribute("userId"));
+            return ResponseEntity.ok(new MessageResponse("JWT keys reloaded, active key id: " + activeKeyId));
+        } catch (Exception e) {
+            log.error("JWT key reload failed - Error: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(new ErrorResponse("JWT key reload failed: " + e.getMessage()));
+        }
+    }
+
     // ============ HELPER METHODS ============
 
     /**
@@ -3,6 +3,7 @@ package com.prescription.controller;
 import com.prescription.dto.AppointmentRequestDTO;
 import com.prescription.dto.AppointmentResponseDTO;
 import com.prescription.dto.AppointmentScheduleDTO;
+import com.prescription.dto.CursorPage;
 import com.prescription.dto.DoctorSearchDTO;
 import com.prescription.entity.Appointment;
 import com.prescription.entity.Hospital;
@@ -30,6 +31,8 @@ import java.util.stream.Collectors;
 @CrossOrigin(origins = "*")
 public class AppointmentController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     private AppointmentService appointmentService;
 
@@ -131,27 +134,18 @@ public class AppointmentController {
 
     @GetMapping("/patient")
     public ResponseEntity<List<AppointmentResponseDTO>> getPatientAppointments(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
             HttpServletRequest request) {
         try {
-            List<Appointment> appointments;
-//            if (status != null && !status.isEmpty()) {
-//                Appointment.Status appointmentStatus = Appointment.Status.valueOf(status.toUpperCase());
-//                appointments = appointmentService.getPatientAppointmentsByStatus(patientId, appointmentStatus);
-//            } else {
-//                appointments = appointmentService.getAllPatientAppointments(patientId);
-//            }
-            System.out.println("========================================================================");
-            System.out.println(1);
-            Optional<User> optionalUser = userService.getUserById((Long) request.getAttribute("userId"));
-            System.out.println(2);
-            appointments=appointmentRepository.findByPatient(optionalUser.get());
-            System.out.println(3);
-            List<AppointmentResponseDTO> appointmentDTOs = appointments.stream()
-                    .map(this::convertToResponseDTO)
-                    .collect(Collectors.toList());
-            System.out.println(appointmentDTOs);
-            System.out.println("========================================================================");
-            return ResponseEntity.ok(appointmentDTOs);
+            Long patientId = (Long) request.getAttribute("userId");
+            if (patientId == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+            }
+            CursorPage<Appointment> page = appointmentService.getPatientAppointmentsPage(patientId, cursor, limit);
+            return toPageResponse(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -189,18 +183,21 @@ public class AppointmentController {
      * Doctor gets pending appointment requests
      */
     @GetMapping("/doctor/pending")
-    public ResponseEntity<List<AppointmentResponseDTO>> getPendingRequests(HttpServletRequest request2) {
+    public ResponseEntity<List<AppointmentResponseDTO>> getPendingRequests(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            HttpServletRequest request2) {
         try {
             Long doctorId = (Long) request2.getAttribute("userId");
             if (doctorId == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
 
-            List<Appointment> requests = appointmentService.getPendingRequests(doctorId);
-            List<AppointmentResponseDTO> requestDTOs = requests.stream()
-                    .map(this::convertToResponseDTO)
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok(requestDTOs);
+            CursorPage<Appointment> page = appointmentService.getDoctorAppointmentsPage(
+                    doctorId, EnumSet.of(Appointment.Status.REQUESTED), cursor, limit);
+            return toPageResponse(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -279,17 +276,19 @@ public class AppointmentController {
      * Doctor gets confirmed appointments
      */
     @GetMapping("/doctor/confirmed")
-    public ResponseEntity<List<AppointmentResponseDTO>> getConfirmedAppointments(HttpServletRequest request) {
+    public ResponseEntity<List<AppointmentResponseDTO>> getConfirmedAppointments(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            HttpServletRequest request) {
         try {
             Long doctorId = (Long) request.getAttribute("userId");
             if (doctorId == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
-            List<Appointment> appointments = appointmentService.getConfirmedAppointments(doctorId);
-            List<AppointmentResponseDTO> appointmentDTOs = appointments.stream()
-                    .map(this::convertToResponseDTO)
-                    .collect(Collectors.toList());
-            return ResponseEntity.ok(appointmentDTOs);
+            CursorPage<Appointment> page = appointmentService.getConfirmedAppointmentsPage(doctorId, cursor, limit);
+            return toPageResponse(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -301,27 +300,22 @@ public class AppointmentController {
     @GetMapping("/doctor/all")
     public ResponseEntity<List<AppointmentResponseDTO>> getAllDoctorAppointments(
             @RequestParam(required = false) String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
             HttpServletRequest request) {
         try {
-            Optional<User> optionalUser = userService.getUserById((Long) request.getAttribute("userId"));
-            if (optionalUser.isEmpty()) {
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-            }
-            User currentUser = optionalUser.get();
-            Long doctorId = currentUser.getId();
-            List<Appointment> appointments;
-            if (status != null && !status.isEmpty()) {
-                Appointment.Status appointmentStatus = Appointment.Status.valueOf(status.toUpperCase());
-                appointments = appointmentService.getDoctorAppointmentsByStatus(doctorId, appointmentStatus);
-            } else {
-                appointments = appointmentService.getAllDoctorAppointments(doctorId);
+            Long doctorId = (Long) request.getAttribute("userId");
+            if (doctorId == null) {
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
             }
-
-            List<AppointmentResponseDTO> appointmentDTOs = appointments.stream()
-                    .map(this::convertToResponseDTO)
-                    .collect(Collectors.toList());
-
-            return ResponseEntity.ok(appointmentDTOs);
+            Set<Appointment.Status> statuses = (status != null && !status.isEmpty())
+                    ? EnumSet.of(Appointment.Status.valueOf(status.toUpperCase()))
+                    : EnumSet.allOf(Appointment.Status.class);
+
+            CursorPage<Appointment> page = appointmentService.getDoctorAppointmentsPage(doctorId, statuses, cursor, limit);
+            return toPageResponse(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -432,6 +426,20 @@ public class AppointmentController {
 
     // ============= UTILITY METHODS =============
 
+    /**
+     * Page items as the response body; the cursor for the next page, if any, goes in X-Next-Cursor
+     */
+    private ResponseEntity<List<AppointmentResponseDTO>> toPageResponse(CursorPage<Appointment> page) {
+        List<AppointmentResponseDTO> appointmentDTOs = page.getItems().stream()
+                .map(this::convertToResponseDTO)
+                .collect(Collectors.toList());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(appointmentDTOs);
+    }
+
     /**
      * Convert Appointment entity to Response DTO
      */
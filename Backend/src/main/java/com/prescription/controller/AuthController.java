@@ -2,6 +2,8 @@ package com.prescription.controller;
 
 import com.prescription.dto.*;
 import com.prescription.entity.User;
+import com.prescription.security.JwtAuthenticationFilter;
+import com.prescription.security.JwtClaimsCache;
 import com.prescription.service.UserService;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
@@ -23,6 +25,9 @@ public class AuthController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private JwtClaimsCache jwtClaimsCache;
+
 
 
     @PostMapping("/login")
@@ -72,7 +77,13 @@ public class AuthController {
     }
 
     @PostMapping("/logout")
-    public ResponseEntity<?> logoutUser(HttpServletResponse response) {
+    public ResponseEntity<?> logoutUser(HttpServletRequest request, HttpServletResponse response) {
+        // Reject the token from now on, not just drop the cookie
+        String token = JwtAuthenticationFilter.getJwtFromRequest(request);
+        if (token != null && !token.isEmpty()) {
+            jwtClaimsCache.revoke(token);
+        }
+
         // Clear JWT cookie
         Cookie jwtCookie = new Cookie("jwt", "");
         jwtCookie.setHttpOnly(true);
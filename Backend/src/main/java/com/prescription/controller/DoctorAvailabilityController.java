@@ -336,6 +336,10 @@ public class DoctorAvailabilityController {
             response.put("slot", availabilityService.convertToSlotDTO(slot));
             return ResponseEntity.ok(response);
 
+        } catch (IllegalStateException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
         } catch (Exception e) {
             response.put("success", false);
             response.put("message", "Error releasing slot: " + e.getMessage());
@@ -3,6 +3,8 @@ package com.prescription.controller;
 import com.prescription.dto.HospitalDto;
 import com.prescription.service.HospitalService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -29,8 +31,14 @@ public class HospitalController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<HospitalDto>> searchHospitals(@RequestParam String query) {
-        List<HospitalDto> hospitals = hospitalService.searchHospitals(query);
+    public ResponseEntity<List<HospitalDto>> searchHospitals(@RequestParam String query,
+                                                             @RequestParam(required = false) Integer page,
+                                                             @RequestParam(required = false) Integer size) {
+        // Unpaged unless a page size is given
+        Pageable pageable = size != null
+                ? PageRequest.of(page != null ? page : 0, size)
+                : Pageable.unpaged();
+        List<HospitalDto> hospitals = hospitalService.searchHospitals(query, pageable);
         return ResponseEntity.ok(hospitals);
     }
 
@@ -1,14 +1,20 @@
 package com.prescription.controller;
 
+import com.prescription.dto.MedicineImportReport;
 import com.prescription.dto.MedicineRequestDto;
 import com.prescription.dto.MedicineSearchDto;
+import com.prescription.service.MedicineImportService;
 import com.prescription.service.MedicineService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -19,12 +25,21 @@ public class MedicineController {
     @Autowired
     private MedicineService medicineService;
 
+    @Autowired
+    private MedicineImportService medicineImportService;
+
     @GetMapping("/search")
     @PreAuthorize("hasRole('DOCTOR') or hasRole('ADMIN') or hasRole('ROOT_ADMIN')")
     public ResponseEntity<List<MedicineSearchDto>> searchMedicines(
-            @RequestParam(name = "q", required = false) String searchTerm) {
+            @RequestParam(name = "q", required = false) String searchTerm,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
         try {
-            List<MedicineSearchDto> medicines = medicineService.searchMedicines(searchTerm);
+            // Unpaged unless a page size is given
+            Pageable pageable = size != null
+                    ? PageRequest.of(page != null ? page : 0, size)
+                    : Pageable.unpaged();
+            List<MedicineSearchDto> medicines = medicineService.searchMedicines(searchTerm, pageable);
             return ResponseEntity.ok(medicines);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -43,13 +58,19 @@ public class MedicineController {
     }
 
     @GetMapping("/generics")
-    public ResponseEntity<List<MedicineSearchDto>> searchAllGenerics(@RequestParam(name = "q", required = false) String searchTerm) {
-        System.out.println("AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAa");
+    public ResponseEntity<List<MedicineSearchDto>> searchAllGenerics(
+            @RequestParam(name = "q", required = false) String searchTerm,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
         try {
-            List<MedicineSearchDto> medicine = medicineService.getAllgenerics(searchTerm);
-            System.out.println(1);
-            System.out.println(medicine);
+            // Unpaged unless a page size is given
+            Pageable pageable = size != null
+                    ? PageRequest.of(page != null ? page : 0, size)
+                    : Pageable.unpaged();
+            List<MedicineSearchDto> medicine = medicineService.getAllgenerics(searchTerm, pageable);
             return ResponseEntity.ok(medicine);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -67,6 +88,25 @@ public class MedicineController {
         }
     }
 
+    /**
+     * Bulk catalogue import. The request body is streamed as CSV (with a header row)
+     * or JSON lines, depending on the format parameter.
+     */
+    @PostMapping("/import")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('ROOT_ADMIN')")
+    public ResponseEntity<?> importMedicines(@RequestParam(defaultValue = "csv") String format,
+                                            HttpServletRequest request) {
+        try {
+            MedicineImportService.Format importFormat = MedicineImportService.Format.valueOf(format.toUpperCase());
+            MedicineImportReport report = medicineImportService.importCatalogue(request.getInputStream(), importFormat);
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid import: " + e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body("Failed to read import: " + e.getMessage());
+        }
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('ROOT_ADMIN')")
     public ResponseEntity<String> updateMedicine(@PathVariable Long id, @Valid @RequestBody MedicineRequestDto medicineRequestDto) {
@@ -3,6 +3,7 @@ package com.prescription.controller;
 import com.prescription.entity.Notification;
 import com.prescription.service.NotificationService;
 import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -13,6 +14,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+@Slf4j
 @RestController
 @RequestMapping("/notifications")
 @CrossOrigin(origins = "*", maxAge = 3600)
@@ -22,14 +24,17 @@ public class NotificationController {
     private NotificationService notificationService;
 
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getNotifications(HttpServletRequest request) {
+    public ResponseEntity<Map<String, Object>> getNotifications(
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            HttpServletRequest request) {
         try {
             Long userId = (Long) request.getAttribute("userId");
             if (userId == null) {
-                System.err.println(" User ID is null in getNotifications");
+                log.warn("User ID is null in getNotifications");
                 return ResponseEntity.status(401).body(Map.of("success", false, "error", "User not authenticated"));
             }
-            List<Notification> notifications = notificationService.getUserNotifications(userId);
+            List<Notification> notifications = notificationService.getUserNotifications(userId, page, size);
             long unreadCount = notificationService.getUnreadCount(userId);
 
             Map<String, Object> response = new HashMap<>();
@@ -38,21 +43,24 @@ public class NotificationController {
             response.put("unreadCount", unreadCount);
             return ResponseEntity.ok(response);
         } catch (Exception e) {
-            System.err.println(" Error in getNotifications: " + e.getMessage());
+            log.error("Error in getNotifications", e);
             return ResponseEntity.status(500).body(Map.of("success", false, "error", e.getMessage()));
         }
     }
 
     @GetMapping("/unread")
-    public ResponseEntity<Map<String, Object>> getUnreadNotifications(HttpServletRequest request) {
+    public ResponseEntity<Map<String, Object>> getUnreadNotifications(
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            HttpServletRequest request) {
         try {
             Long userId = (Long) request.getAttribute("userId");
             if (userId == null) {
-                System.err.println(" User ID is null in getUnreadNotifications");
+                log.warn("User ID is null in getUnreadNotifications");
                 return ResponseEntity.badRequest().body(Map.of("success", false, "error", "User not authenticated"));
             }
-            List<Notification> notifications = notificationService.getUnreadNotifications(userId);
-            long unreadCount = notifications.size();
+            List<Notification> notifications = notificationService.getUnreadNotifications(userId, page, size);
+            long unreadCount = notificationService.getUnreadCount(userId);
 
             return ResponseEntity.ok(Map.of(
                     "success", true,
@@ -60,17 +68,35 @@ public class NotificationController {
                     "unreadCount", unreadCount
             ));
         } catch (Exception e) {
-            System.err.println(" Error in getUnreadNotifications: " + e.getMessage());
+            log.error("Error in getUnreadNotifications", e);
             return ResponseEntity.badRequest().body(Map.of("success", false, "error", e.getMessage()));
         }
     }
 
+    @GetMapping("/unread/count")
+    public ResponseEntity<Map<String, Object>> getUnreadCount(HttpServletRequest request) {
+        try {
+            Long userId = (Long) request.getAttribute("userId");
+            if (userId == null) {
+                log.warn("User ID is null in getUnreadCount");
+                return ResponseEntity.status(401).body(Map.of("success", false, "error", "User not authenticated"));
+            }
+            return ResponseEntity.ok(Map.of(
+                    "success", true,
+                    "unreadCount", notificationService.getUnreadCount(userId)
+            ));
+        } catch (Exception e) {
+            log.error("Error in getUnreadCount", e);
+            return ResponseEntity.status(500).body(Map.of("success", false, "error", e.getMessage()));
+        }
+    }
+
     @GetMapping("/prescription/{prescriptionId}/reminders")
     public ResponseEntity<Map<String, Object>> getMedicineReminders(@PathVariable Long prescriptionId, HttpServletRequest request) {
         try {
             Long userId = (Long) request.getAttribute("userId");
             if (userId == null) {
-                System.err.println(" User ID is null in getMedicineReminders");
+                log.warn("User ID is null in getMedicineReminders");
                 return ResponseEntity.status(401).body(Map.of("success", false, "error", "User not authenticated"));
             }
             List<Notification> reminders = notificationService.getPrescriptionNotifications(prescriptionId).stream()
@@ -81,7 +107,7 @@ public class NotificationController {
                     "reminders", reminders
             ));
         } catch (Exception e) {
-            System.err.println(" Error in getMedicineReminders: " + e.getMessage());
+            log.error("Error in getMedicineReminders", e);
             return ResponseEntity.badRequest().body(Map.of("success", false, "error", e.getMessage()));
         }
     }
@@ -101,13 +127,13 @@ public class NotificationController {
         try {
             Long userId = (Long) request.getAttribute("userId");
             if (userId == null) {
-                System.err.println(" User ID is null in markAllAsRead");
+                log.warn("User ID is null in markAllAsRead");
                 return ResponseEntity.badRequest().body(Map.of("success", false, "error", "User not authenticated"));
             }
             notificationService.markAllAsRead(userId);
             return ResponseEntity.ok(Map.of("success", true, "message", "All notifications marked as read"));
         } catch (Exception e) {
-            System.err.println(" Error in markAllAsRead: " + e.getMessage());
+            log.error("Error in markAllAsRead", e);
             return ResponseEntity.badRequest().body(Map.of("success", false, "error", e.getMessage()));
         }
     }
@@ -134,7 +160,7 @@ public class NotificationController {
 
     @GetMapping("/test")
     public ResponseEntity<Map<String, Object>> testEndpoint() {
-        System.out.println(" TEST ENDPOINT CALLED - API is working!");
+        log.debug("Notification test endpoint called");
         return ResponseEntity.ok(Map.of(
                 "success", true,
                 "message", "Notification API is working!",
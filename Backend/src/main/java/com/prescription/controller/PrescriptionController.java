@@ -1,12 +1,17 @@
 package com.prescription.controller;
 
+import com.prescription.dto.CursorPage;
 import com.prescription.dto.PrescriptionCreateDto;
 import com.prescription.dto.PrescriptionDto;
 import com.prescription.service.PrescriptionService;
+import com.prescription.service.PrescriptionSnapshotCache;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -19,9 +24,14 @@ import java.util.Optional;
 @CrossOrigin(origins = "*", maxAge = 3600)
 public class PrescriptionController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     private PrescriptionService prescriptionService;
 
+    @Autowired
+    private PrescriptionSnapshotCache snapshotCache;
+
     @PostMapping
    @PreAuthorize("hasRole('DOCTOR')")
     public ResponseEntity<?> createPrescription(@Valid @RequestBody PrescriptionCreateDto createDto,
@@ -42,15 +52,18 @@ public class PrescriptionController {
 
     @GetMapping("/doctor")
     @PreAuthorize("hasRole('DOCTOR')")
-    public ResponseEntity<List<PrescriptionDto>> getDoctorPrescriptions(HttpServletRequest request) {
+    public ResponseEntity<List<PrescriptionDto>> getDoctorPrescriptions(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            HttpServletRequest request) {
         try {
             Long doctorId = (Long) request.getAttribute("userId");
             if (doctorId == null) {
                 return ResponseEntity.badRequest().build();
             }
 
-            List<PrescriptionDto> prescriptions = prescriptionService.getPrescriptionsByDoctor(doctorId);
-            return ResponseEntity.ok(prescriptions);
+            CursorPage<PrescriptionDto> page = prescriptionService.getPrescriptionsByDoctor(doctorId, cursor, limit);
+            return toPageResponse(page);
 
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -59,16 +72,18 @@ public class PrescriptionController {
 
     @GetMapping("/patient")
     @PreAuthorize("hasRole('PATIENT')")
-    public ResponseEntity<List<PrescriptionDto>> getPatientPrescriptions(HttpServletRequest request) {
+    public ResponseEntity<List<PrescriptionDto>> getPatientPrescriptions(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            HttpServletRequest request) {
         try {
             Long patientId = (Long) request.getAttribute("userId");
             if (patientId == null) {
                 return ResponseEntity.badRequest().build();
             }
 
-            List<PrescriptionDto> prescriptions = prescriptionService.getPrescriptionsByPatient(patientId);
-            System.out.println(prescriptions);
-            return ResponseEntity.ok(prescriptions);
+            CursorPage<PrescriptionDto> page = prescriptionService.getPrescriptionsByPatient(patientId, cursor, limit);
+            return toPageResponse(page);
 
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -80,45 +95,87 @@ public class PrescriptionController {
 
     @GetMapping("/patient/{patientId}")
    @PreAuthorize("hasRole('DOCTOR')")
-    public ResponseEntity<List<PrescriptionDto>> getPatientPrescriptions(@PathVariable Long patientId) {
+    public ResponseEntity<List<PrescriptionDto>> getPatientPrescriptions(
+            @PathVariable Long patientId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
         try {
-            List<PrescriptionDto> prescriptions = prescriptionService.getPrescriptionsByPatient(patientId);
-            return ResponseEntity.ok(prescriptions);
+            CursorPage<PrescriptionDto> page = prescriptionService.getPrescriptionsByPatient(patientId, cursor, limit);
+            return toPageResponse(page);
 
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    /**
+     * Serves the cached rendering of the prescription with a strong ETag, answering
+     * 304 when the client already holds the same version.
+     */
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('DOCTOR') or hasRole('PATIENT')")
-    public ResponseEntity<PrescriptionDto> getPrescriptionById(@PathVariable Long id,
-                                                               HttpServletRequest request) {
+    public ResponseEntity<byte[]> getPrescriptionById(@PathVariable Long id,
+                                                      HttpServletRequest request) {
         try {
-            Optional<PrescriptionDto> prescriptionOpt = prescriptionService.getPrescriptionById(id);
-            if (prescriptionOpt.isEmpty()) {
+            Optional<PrescriptionSnapshotCache.Snapshot> snapshotOpt = snapshotCache.get(id);
+            if (snapshotOpt.isEmpty()) {
                 return ResponseEntity.notFound().build();
             }
 
-            PrescriptionDto prescription = prescriptionOpt.get();
+            PrescriptionSnapshotCache.Snapshot snapshot = snapshotOpt.get();
 
             // Check if user has permission to view this prescription
             Long userId = (Long) request.getAttribute("userId");
             String userRole = (String) request.getAttribute("userRole");
 
-            if ("DOCTOR".equals(userRole) && !prescription.getDoctor().getId().equals(userId)) {
+            if ("DOCTOR".equals(userRole) && !snapshot.doctorId().equals(userId)) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
-            } else if ("PATIENT".equals(userRole) && !prescription.getPatient().getId().equals(userId)) {
+            } else if ("PATIENT".equals(userRole) && !snapshot.patientId().equals(userId)) {
                 return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
             }
 
-            return ResponseEntity.ok(prescription);
+            // Private: prescriptions must not be kept by shared caches
+            CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+            if (matchesEtag(request.getHeader(HttpHeaders.IF_NONE_MATCH), snapshot.etag())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(snapshot.etag())
+                        .cacheControl(cacheControl)
+                        .build();
+            }
+
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .eTag(snapshot.etag())
+                    .cacheControl(cacheControl)
+                    .body(snapshot.body());
 
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    private static boolean matchesEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The page body stays a plain list; the cursor for the next page goes in a header
+    private ResponseEntity<List<PrescriptionDto>> toPageResponse(CursorPage<PrescriptionDto> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
+
     // Helper class for error responses
     public static class ErrorResponse {
         private String message;
@@ -0,0 +1,32 @@
+package com.prescription.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk catalogue import. Only the first rejected rows are listed in
+ * detail; rejectedRows always holds the full count.
+ */
+@Data
+@NoArgsConstructor
+public class MedicineImportReport {
+    private long totalRows;
+    private long importedRows;
+    private long duplicateRows;
+    private long rejectedRows;
+    private long genericsCreated;
+    private long elapsedMillis;
+    private List<RejectedRow> rejected = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RejectedRow {
+        private long line;
+        private String reason;
+    }
+}
@@ -32,6 +32,13 @@ public class MedicineSearchDto {
         this.description = description;
     }
 
+    // Copies the fields of a single medicine or generic; nested medicines are not copied
+    public MedicineSearchDto(MedicineSearchDto source) {
+        this(source.getId(), source.getName(), source.getGenericName(), source.getStrength(),
+                source.getForm(), source.getPrice(), source.getCategory(), source.getDescription());
+        this.manufacturer = source.getManufacturer();
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
@@ -14,7 +14,12 @@ import java.time.LocalDateTime;
 @Entity
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "appointments")
+@Table(name = "appointments", indexes = {
+        @Index(name = "idx_appointments_doctor_patient", columnList = "doctor_user_id, patient_user_id"),
+        @Index(name = "idx_appointments_doctor_scheduled", columnList = "doctor_user_id, scheduled_time, id"),
+        @Index(name = "idx_appointments_doctor_created", columnList = "doctor_user_id, created_at, id"),
+        @Index(name = "idx_appointments_patient_created", columnList = "patient_user_id, created_at, id")
+})
 @EntityListeners(AuditingEntityListener.class)
 public class Appointment {
 
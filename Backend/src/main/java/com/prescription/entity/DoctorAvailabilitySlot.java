@@ -8,7 +8,9 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 
 @Entity
-@Table(name = "doctor_availability_slots")
+@Table(name = "doctor_availability_slots",
+        uniqueConstraints = @UniqueConstraint(name = "uk_doctor_slot_window",
+                columnNames = {"doctor_id", "slot_date", "start_time", "end_time"}))
 @Data
 public class DoctorAvailabilitySlot {
     @Id
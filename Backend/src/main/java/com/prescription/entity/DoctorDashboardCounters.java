@@ -0,0 +1,46 @@
+package com.prescription.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Per-doctor dashboard counters, kept up to date by appointment and prescription
+ * events and periodically reconciled against the source tables.
+ */
+@Entity
+@Table(name = "doctor_dashboard_counters")
+@Data
+public class DoctorDashboardCounters {
+    @Id
+    @Column(name = "doctor_id")
+    private Long doctorId;
+
+    @Column(name = "total_appointments", nullable = false)
+    private long totalAppointments;
+
+    @Column(name = "pending_requests", nullable = false)
+    private long pendingRequests;
+
+    @Column(name = "scheduled_appointments", nullable = false)
+    private long scheduledAppointments; // SCHEDULED + CONFIRMED
+
+    @Column(name = "completed_appointments", nullable = false)
+    private long completedAppointments;
+
+    @Column(name = "cancelled_appointments", nullable = false)
+    private long cancelledAppointments;
+
+    @Column(name = "new_patients", nullable = false)
+    private long newPatients; // Patients whose first appointment is still REQUESTED or SCHEDULED
+
+    @Column(name = "appointment_patients", nullable = false)
+    private long appointmentPatients; // Distinct patients with at least one appointment
+
+    @Column(name = "unique_patients", nullable = false)
+    private long uniquePatients; // Distinct patients from appointments and prescriptions
+
+    @Column(name = "reconciled_at")
+    private LocalDateTime reconciledAt;
+}
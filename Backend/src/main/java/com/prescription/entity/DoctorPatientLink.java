@@ -0,0 +1,30 @@
+package com.prescription.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * Marks that a patient has interacted with a doctor, so dashboard counters can tell
+ * a first interaction from a repeat one without scanning history.
+ */
+@Entity
+@Table(name = "doctor_patient_links",
+        uniqueConstraints = @UniqueConstraint(name = "uk_doctor_patient_link", columnNames = {"doctor_id", "patient_id"}))
+@Data
+public class DoctorPatientLink {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "doctor_id", nullable = false)
+    private Long doctorId;
+
+    @Column(name = "patient_id", nullable = false)
+    private Long patientId;
+
+    @Column(name = "first_appointment_id")
+    private Long firstAppointmentId; // Null if the patient only has prescriptions
+
+    @Column(name = "has_prescription", nullable = false)
+    private boolean hasPrescription;
+}
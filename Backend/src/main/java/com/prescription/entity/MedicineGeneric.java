@@ -10,11 +10,13 @@ import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.time.LocalDateTime;
+import java.util.Locale;
 
 // Medicine Generic Entity
 @Data
 @Entity
-@Table(name = "medicine_generics")
+@Table(name = "medicine_generics",
+        uniqueConstraints = @UniqueConstraint(name = "uk_medicine_generics_name_key", columnNames = "name_key"))
 @EntityListeners(AuditingEntityListener.class)
 public class MedicineGeneric {
 
@@ -27,6 +29,10 @@ public class MedicineGeneric {
     @Column(name = "generic_name", nullable = false, unique = true)
     private String genericName;
 
+    // Normalized genericName used for exact lookups; kept in sync on save
+    @Column(name = "name_key")
+    private String nameKey;
+
     @NotBlank
     @Column(nullable = false)
     private String category;
@@ -51,5 +57,20 @@ public class MedicineGeneric {
         this.description = description;
     }
 
+    @PrePersist
+    @PreUpdate
+    protected void updateNameKey() {
+        if (genericName != null) {
+            this.nameKey = normalizeName(genericName);
+        }
+    }
+
+    /**
+     * Case-insensitive, whitespace-insensitive form of a generic name.
+     */
+    public static String normalizeName(String genericName) {
+        return genericName.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
 }
 
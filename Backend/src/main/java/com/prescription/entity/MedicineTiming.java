@@ -21,8 +21,10 @@ import java.time.LocalTime;
 public class MedicineTiming {
 
     // Getters and Setters
+    // Pooled sequence so a prescription's rows can be inserted in JDBC batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "medicine_timing_seq")
+    @SequenceGenerator(name = "medicine_timing_seq", sequenceName = "medicine_timings_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -15,7 +15,11 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+        @Index(name = "idx_notifications_type_reminder_time", columnList = "type, reminder_time"),
+        @Index(name = "idx_notifications_user_created", columnList = "user_id, created_at"),
+        @Index(name = "idx_notifications_type_created", columnList = "type, created_at")
+})
 public class Notification {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
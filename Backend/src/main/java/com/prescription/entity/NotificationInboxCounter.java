@@ -0,0 +1,31 @@
+package com.prescription.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Per-user unread notification count, adjusted in the same transaction as every
+ * change to the user's notifications and periodically reconciled.
+ */
+@Entity
+@Table(name = "notification_inbox_counters")
+@Data
+public class NotificationInboxCounter {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "unread_count", nullable = false)
+    private long unreadCount;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+}
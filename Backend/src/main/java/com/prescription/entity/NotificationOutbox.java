@@ -0,0 +1,70 @@
+package com.prescription.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * A notification written by a business transaction and not yet delivered. The
+ * dispatcher turns these rows into notifications and pushes them to the user,
+ * retrying failed rows with backoff and dead-lettering those it gives up on.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "notification_outbox")
+public class NotificationOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(columnDefinition = "TEXT")
+    private String message;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Notification.NotificationType type;
+
+    @Column(name = "appointment_id")
+    private Long appointmentId;
+
+    @Column(name = "prescription_id")
+    private Long prescriptionId;
+
+    @Column(name = "reminder_time")
+    private LocalTime reminderTime;
+
+    @Column(name = "frequency")
+    private String frequency;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Failed delivery attempts so far; the row is skipped until nextAttemptAt
+    @Builder.Default
+    @Column(name = "attempts", columnDefinition = "int default 0")
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    // Set once the row is given up on; it is kept for inspection but never retried
+    @Column(name = "dead_lettered_at")
+    private LocalDateTime deadLetteredAt;
+}
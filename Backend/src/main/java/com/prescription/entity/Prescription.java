@@ -17,13 +17,18 @@ import java.util.List;
 // Prescription Entity
 @Data
 @Entity
-@Table(name = "prescriptions")
+@Table(name = "prescriptions", indexes = {
+        @Index(name = "idx_prescriptions_doctor_created", columnList = "doctor_user_id, created_at, id"),
+        @Index(name = "idx_prescriptions_patient_created", columnList = "patient_user_id, created_at, id")
+})
 @EntityListeners(AuditingEntityListener.class)
 public class Prescription {
 
     // Getters and Setters
+    // Pooled sequence so a prescription's rows can be inserted in JDBC batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "prescription_seq")
+    @SequenceGenerator(name = "prescription_seq", sequenceName = "prescriptions_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank
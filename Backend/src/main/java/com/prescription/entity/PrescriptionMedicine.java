@@ -20,8 +20,10 @@ import java.util.List;
 public class PrescriptionMedicine {
 
     // Getters and Setters
+    // Pooled sequence so a prescription's rows can be inserted in JDBC batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "prescription_medicine_seq")
+    @SequenceGenerator(name = "prescription_medicine_seq", sequenceName = "prescription_medicines_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,28 @@
+package com.prescription.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "slot_generation_checkpoints")
+@Data
+public class SlotGenerationCheckpoint {
+    @Id
+    @Column(name = "doctor_id")
+    private Long doctorId;
+
+    @Column(name = "horizon_date", nullable = false)
+    private LocalDate horizonDate; // Last day for which slots have been generated
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+}
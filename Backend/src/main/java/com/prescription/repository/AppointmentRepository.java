@@ -1,10 +1,12 @@
 package com.prescription.repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
 import com.prescription.entity.Hospital;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -44,14 +46,99 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
 
     List<Appointment> findByDoctorAndScheduledTimeBetweenOrderByScheduledTimeAsc(User doctor, LocalDateTime start, LocalDateTime end);
 
+    // Keyset pages: rows strictly after the (timestamp, id) cursor, with doctor and patient fetched
+
+    @Query("SELECT a FROM Appointment a JOIN FETCH a.doctor JOIN FETCH a.patient " +
+            "WHERE a.patient.id = :patientId " +
+            "AND (a.createdAt < :createdAt OR (a.createdAt = :createdAt AND a.id < :id)) " +
+            "ORDER BY a.createdAt DESC, a.id DESC")
+    List<Appointment> findPatientPageByCreatedAtDesc(@Param("patientId") Long patientId,
+                                                     @Param("createdAt") LocalDateTime createdAt,
+                                                     @Param("id") Long id,
+                                                     Pageable pageable);
+
+    @Query("SELECT a FROM Appointment a JOIN FETCH a.doctor JOIN FETCH a.patient " +
+            "WHERE a.doctor.id = :doctorId AND a.status IN :statuses " +
+            "AND (a.createdAt < :createdAt OR (a.createdAt = :createdAt AND a.id < :id)) " +
+            "ORDER BY a.createdAt DESC, a.id DESC")
+    List<Appointment> findDoctorPageByCreatedAtDesc(@Param("doctorId") Long doctorId,
+                                                    @Param("statuses") Collection<Appointment.Status> statuses,
+                                                    @Param("createdAt") LocalDateTime createdAt,
+                                                    @Param("id") Long id,
+                                                    Pageable pageable);
+
+    @Query("SELECT a FROM Appointment a JOIN FETCH a.doctor JOIN FETCH a.patient " +
+            "WHERE a.doctor.id = :doctorId AND a.status IN :statuses " +
+            "AND (a.scheduledTime > :scheduledTime OR (a.scheduledTime = :scheduledTime AND a.id > :id)) " +
+            "ORDER BY a.scheduledTime ASC, a.id ASC")
+    List<Appointment> findDoctorPageByScheduledTimeAsc(@Param("doctorId") Long doctorId,
+                                                       @Param("statuses") Collection<Appointment.Status> statuses,
+                                                       @Param("scheduledTime") LocalDateTime scheduledTime,
+                                                       @Param("id") Long id,
+                                                       Pageable pageable);
+
     @Query("SELECT a FROM Appointment a WHERE a.doctor = :doctor AND a.scheduledTime BETWEEN :startDate AND :endDate ORDER BY a.scheduledTime ASC")
     List<Appointment> findByDoctorAndDateRange(@Param("doctor") User doctor,
                                                @Param("startDate") LocalDateTime startDate,
                                                @Param("endDate") LocalDateTime endDate);
 
+    @Query("SELECT a.scheduledTime FROM Appointment a WHERE a.doctor = :doctor " +
+            "AND a.scheduledTime BETWEEN :start AND :end AND a.status <> :excludedStatus")
+    List<LocalDateTime> findBookedTimesForDoctor(@Param("doctor") User doctor,
+                                                 @Param("start") LocalDateTime start,
+                                                 @Param("end") LocalDateTime end,
+                                                 @Param("excludedStatus") Appointment.Status excludedStatus);
+
     @Query("SELECT COUNT(a) FROM Appointment a WHERE a.doctor = :doctor AND a.status = :status")
     Long countByDoctorAndStatus(@Param("doctor") User doctor, @Param("status") Appointment.Status status);
 
+    /**
+     * Status totals and distinct patients for one doctor in a single aggregate scan.
+     */
+    @Query("SELECT COUNT(a) AS total, " +
+            "SUM(CASE WHEN a.status = :requested THEN 1 ELSE 0 END) AS pending, " +
+            "SUM(CASE WHEN a.status = :scheduled OR a.status = :confirmed THEN 1 ELSE 0 END) AS scheduled, " +
+            "SUM(CASE WHEN a.status = :completed THEN 1 ELSE 0 END) AS completed, " +
+            "SUM(CASE WHEN a.status = :cancelled THEN 1 ELSE 0 END) AS cancelled, " +
+            "COUNT(DISTINCT a.patient.id) AS uniquePatients " +
+            "FROM Appointment a WHERE a.doctor.id = :doctorId")
+    DoctorAppointmentTotals aggregateTotalsForDoctor(@Param("doctorId") Long doctorId,
+                                                     @Param("requested") Appointment.Status requested,
+                                                     @Param("scheduled") Appointment.Status scheduled,
+                                                     @Param("confirmed") Appointment.Status confirmed,
+                                                     @Param("completed") Appointment.Status completed,
+                                                     @Param("cancelled") Appointment.Status cancelled);
+
+    /**
+     * Patients whose first appointment with the doctor is still open (requested or scheduled).
+     */
+    @Query("SELECT COUNT(a) FROM Appointment a WHERE a.doctor.id = :doctorId AND a.status IN :statuses " +
+            "AND a.id = (SELECT MIN(first.id) FROM Appointment first " +
+            "WHERE first.doctor.id = :doctorId AND first.patient.id = a.patient.id)")
+    Long countNewPatientsForDoctor(@Param("doctorId") Long doctorId,
+                                   @Param("statuses") List<Appointment.Status> statuses);
+
+    /**
+     * Each patient's first appointment with the doctor, as [patientId, appointmentId] rows.
+     */
+    @Query("SELECT a.patient.id, MIN(a.id) FROM Appointment a WHERE a.doctor.id = :doctorId GROUP BY a.patient.id")
+    List<Object[]> findFirstAppointmentIdPerPatient(@Param("doctorId") Long doctorId);
+
+    @Query("SELECT COUNT(a) FROM Appointment a WHERE a.doctor.id = :doctorId " +
+            "AND a.scheduledTime > :start AND a.scheduledTime < :end")
+    long countForDoctorBetween(@Param("doctorId") Long doctorId,
+                               @Param("start") LocalDateTime start,
+                               @Param("end") LocalDateTime end);
+
+    interface DoctorAppointmentTotals {
+        Long getTotal();
+        Long getPending();
+        Long getScheduled();
+        Long getCompleted();
+        Long getCancelled();
+        Long getUniquePatients();
+    }
+
     @Query("SELECT COUNT(DISTINCT a.patient) FROM Appointment a WHERE a.doctor = :doctor")
     Long countUniquePatientsForDoctor(@Param("doctor") User doctor);
 
@@ -3,11 +3,13 @@ package com.prescription.repository;
 import com.prescription.entity.DoctorAvailabilitySlot;
 import com.prescription.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.List;
 import java.util.Optional;
@@ -27,7 +29,29 @@ public interface DoctorAvailabilitySlotRepository extends JpaRepository<DoctorAv
                                                       @Param("startTime") LocalTime startTime,
                                                       @Param("endTime") LocalTime endTime);
 
-    void deleteByDoctorAndGeneratedFromTemplateId(User doctor, Long templateId);
+    @Modifying
+    @Query("DELETE FROM DoctorAvailabilitySlot das WHERE das.doctor = :doctor " +
+            "AND das.generatedFromTemplateId = :templateId")
+    void deleteByDoctorAndGeneratedFromTemplateId(@Param("doctor") User doctor, @Param("templateId") Long templateId);
+
+    @Modifying
+    @Query("DELETE FROM DoctorAvailabilitySlot das WHERE das.doctor = :doctor " +
+            "AND das.slotDate BETWEEN :startDate AND :endDate")
+    void deleteByDoctorAndSlotDateBetween(@Param("doctor") User doctor,
+                                          @Param("startDate") LocalDate startDate,
+                                          @Param("endDate") LocalDate endDate);
+
+    /**
+     * Moves a slot from one status to another only if it is still in the expected status.
+     * Returns 1 if this caller won the transition, 0 otherwise.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE DoctorAvailabilitySlot das SET das.slotStatus = :newStatus, das.updatedAt = :now " +
+            "WHERE das.id = :slotId AND das.slotStatus = :expectedStatus")
+    int compareAndSetStatus(@Param("slotId") Long slotId,
+                            @Param("expectedStatus") DoctorAvailabilitySlot.SlotStatus expectedStatus,
+                            @Param("newStatus") DoctorAvailabilitySlot.SlotStatus newStatus,
+                            @Param("now") LocalDateTime now);
 
     List<DoctorAvailabilitySlot> findByDoctorAndSlotStatusOrderBySlotDateAscStartTimeAsc(
             User doctor, DoctorAvailabilitySlot.SlotStatus status);
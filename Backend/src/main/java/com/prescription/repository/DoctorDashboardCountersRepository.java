@@ -0,0 +1,41 @@
+package com.prescription.repository;
+
+import com.prescription.entity.DoctorDashboardCounters;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface DoctorDashboardCountersRepository extends JpaRepository<DoctorDashboardCounters, Long> {
+
+    /**
+     * Applies counter deltas in place. Returns 0 if the doctor has no counters row yet.
+     */
+    @Modifying
+    @Query("UPDATE DoctorDashboardCounters c SET " +
+            "c.totalAppointments = c.totalAppointments + :total, " +
+            "c.pendingRequests = c.pendingRequests + :pending, " +
+            "c.scheduledAppointments = c.scheduledAppointments + :scheduled, " +
+            "c.completedAppointments = c.completedAppointments + :completed, " +
+            "c.cancelledAppointments = c.cancelledAppointments + :cancelled, " +
+            "c.newPatients = c.newPatients + :newPatients, " +
+            "c.appointmentPatients = c.appointmentPatients + :appointmentPatients, " +
+            "c.uniquePatients = c.uniquePatients + :uniquePatients " +
+            "WHERE c.doctorId = :doctorId")
+    int applyDeltas(@Param("doctorId") Long doctorId,
+                    @Param("total") long total,
+                    @Param("pending") long pending,
+                    @Param("scheduled") long scheduled,
+                    @Param("completed") long completed,
+                    @Param("cancelled") long cancelled,
+                    @Param("newPatients") long newPatients,
+                    @Param("appointmentPatients") long appointmentPatients,
+                    @Param("uniquePatients") long uniquePatients);
+
+    @Query("SELECT c.doctorId FROM DoctorDashboardCounters c")
+    List<Long> findAllDoctorIds();
+}
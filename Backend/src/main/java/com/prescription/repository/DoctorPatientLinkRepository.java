@@ -0,0 +1,20 @@
+package com.prescription.repository;
+
+import com.prescription.entity.DoctorPatientLink;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface DoctorPatientLinkRepository extends JpaRepository<DoctorPatientLink, Long> {
+
+    Optional<DoctorPatientLink> findByDoctorIdAndPatientId(Long doctorId, Long patientId);
+
+    @Modifying
+    @Query("DELETE FROM DoctorPatientLink l WHERE l.doctorId = :doctorId")
+    void deleteByDoctorId(@Param("doctorId") Long doctorId);
+}
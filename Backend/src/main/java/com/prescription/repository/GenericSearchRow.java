@@ -0,0 +1,26 @@
+package com.prescription.repository;
+
+import com.prescription.dto.MedicineSearchDto;
+
+/**
+ * Read-only view of a generic with the columns search results need.
+ */
+public interface GenericSearchRow {
+
+    Long getId();
+
+    String getGenericName();
+
+    String getCategory();
+
+    String getDescription();
+
+    default MedicineSearchDto toDto() {
+        MedicineSearchDto dto = new MedicineSearchDto();
+        dto.setId(getId());
+        dto.setGenericName(getGenericName());
+        dto.setCategory(getCategory());
+        dto.setDescription(getDescription());
+        return dto;
+    }
+}
@@ -1,10 +1,20 @@
 package com.prescription.repository;
 
 import com.prescription.entity.Hospital;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface HospitalRepository extends JpaRepository<Hospital, Long> {
     List<Hospital> findByNameContainingIgnoreCase(String name);
+
+    @Query("SELECT h.id FROM Hospital h WHERE LOWER(h.name) LIKE :pattern " +
+            "ORDER BY CASE WHEN LOWER(h.name) LIKE :prefix THEN 0 ELSE 1 END, LENGTH(h.name), h.id")
+    List<Long> searchIdsRanked(@Param("pattern") String pattern, @Param("prefix") String prefix, Pageable pageable);
+
+    @Query("SELECT h.id FROM Hospital h ORDER BY LOWER(h.name), h.id")
+    List<Long> findIdsOrderByName(Pageable pageable);
 }
\ No newline at end of file
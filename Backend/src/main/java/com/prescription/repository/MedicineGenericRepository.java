@@ -1,11 +1,13 @@
 package com.prescription.repository;
 
 import com.prescription.entity.MedicineGeneric;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,12 +15,35 @@ import java.util.Optional;
 @Repository
 public interface MedicineGenericRepository extends JpaRepository<MedicineGeneric, Long> {
 
+    String SEARCH_ROW_SELECT = "SELECT mg.id AS id, mg.genericName AS genericName, mg.category AS category, " +
+            "mg.description AS description FROM MedicineGeneric mg ";
+
     @Query("SELECT mg FROM MedicineGeneric mg WHERE " +
             ":searchTerm IS NULL OR LOWER(mg.genericName) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
     List<MedicineGeneric> findByGenericNameContainingIgnoreCase(@Param("searchTerm") String searchTerm);
 
+    @Query(SEARCH_ROW_SELECT + "WHERE " +
+            ":searchTerm IS NULL OR LOWER(mg.genericName) LIKE LOWER(CONCAT('%', :searchTerm, '%')) " +
+            "ORDER BY mg.genericName, mg.id")
+    List<GenericSearchRow> findRowPageByGenericNameContainingIgnoreCase(@Param("searchTerm") String searchTerm,
+                                                                        Pageable pageable);
+
+    @Query(SEARCH_ROW_SELECT + "WHERE mg.id IN :ids")
+    List<GenericSearchRow> findSearchRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+
+    @Query("SELECT mg.id FROM MedicineGeneric mg WHERE LOWER(mg.genericName) LIKE :pattern " +
+            "ORDER BY CASE WHEN LOWER(mg.genericName) LIKE :prefix THEN 0 ELSE 1 END, LENGTH(mg.genericName), mg.id")
+    List<Long> searchIdsRanked(@Param("pattern") String pattern, @Param("prefix") String prefix, Pageable pageable);
+
+    @Query("SELECT mg.id FROM MedicineGeneric mg ORDER BY LOWER(mg.genericName), mg.id")
+    List<Long> findIdsOrderByName(Pageable pageable);
 
     Optional<MedicineGeneric> findByGenericNameIgnoreCase(String genericName);
 
+    Optional<MedicineGeneric> findByNameKey(String nameKey);
+
+    List<MedicineGeneric> findByNameKeyIsNull();
+
     List<MedicineGeneric> findByCategory(String category);
 }
@@ -1,17 +1,24 @@
 package com.prescription.repository;
 
 import com.prescription.entity.Medicine;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 // Medicine Repository
 @Repository
 public interface MedicineRepository extends JpaRepository<Medicine, Long> {
 
+    String SEARCH_ROW_SELECT = "SELECT m.id AS id, m.name AS name, m.strength AS strength, m.form AS form, " +
+            "m.price AS price, m.manufacturer AS manufacturer, g.id AS genericId, g.genericName AS genericName, " +
+            "g.category AS category, g.description AS description " +
+            "FROM Medicine m JOIN m.medicineGeneric g ";
+
     @Query("SELECT m FROM Medicine m JOIN m.medicineGeneric mg WHERE " +
             "LOWER(m.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
             "LOWER(mg.genericName) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
@@ -19,6 +26,33 @@ public interface MedicineRepository extends JpaRepository<Medicine, Long> {
 
     List<Medicine> findByMedicineGenericId(Long genericId);
 
+    @Query(SEARCH_ROW_SELECT + "WHERE g.id IN :genericIds ORDER BY m.name, m.id")
+    List<MedicineSearchRow> findSearchRowsByGenericIdIn(@Param("genericIds") Collection<Long> genericIds);
+
+    @Query(SEARCH_ROW_SELECT + "WHERE m.id IN :ids")
+    List<MedicineSearchRow> findSearchRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(SEARCH_ROW_SELECT)
+    List<MedicineSearchRow> findAllSearchRows();
+
+    /**
+     * Identity of every catalogue entry as [name, strength, form, genericId] rows, for import deduplication.
+     */
+    @Query("SELECT m.name, m.strength, m.form, m.medicineGeneric.id FROM Medicine m")
+    List<Object[]> findCatalogueKeys();
+
+
+    /**
+     * Ids matching the pattern on brand or generic name; prefix matches first, then shorter names.
+     */
+    @Query("SELECT m.id FROM Medicine m JOIN m.medicineGeneric mg WHERE " +
+            "LOWER(m.name) LIKE :pattern OR LOWER(mg.genericName) LIKE :pattern " +
+            "ORDER BY CASE WHEN LOWER(m.name) LIKE :prefix THEN 0 " +
+            "WHEN LOWER(mg.genericName) LIKE :prefix THEN 1 ELSE 2 END, LENGTH(m.name), m.id")
+    List<Long> searchIdsRanked(@Param("pattern") String pattern, @Param("prefix") String prefix, Pageable pageable);
+
+    @Query("SELECT m.id FROM Medicine m ORDER BY LOWER(m.name), m.id")
+    List<Long> findIdsOrderByName(Pageable pageable);
 
     @Query("SELECT m FROM Medicine m WHERE LOWER(m.name) LIKE LOWER(CONCAT('%', :name, '%'))")
     List<Medicine> findByNameContainingIgnoreCase(@Param("name") String name);
@@ -0,0 +1,40 @@
+package com.prescription.repository;
+
+import com.prescription.dto.MedicineSearchDto;
+import com.prescription.entity.Medicine;
+
+import java.math.BigDecimal;
+
+/**
+ * Read-only view of a medicine and its generic with exactly the columns search
+ * results need, selected in one query without creating managed entities.
+ */
+public interface MedicineSearchRow {
+
+    Long getId();
+
+    String getName();
+
+    String getStrength();
+
+    Medicine.Form getForm();
+
+    BigDecimal getPrice();
+
+    String getManufacturer();
+
+    Long getGenericId();
+
+    String getGenericName();
+
+    String getCategory();
+
+    String getDescription();
+
+    default MedicineSearchDto toDto() {
+        MedicineSearchDto dto = new MedicineSearchDto(getId(), getName(), getGenericName(), getStrength(),
+                getForm() != null ? getForm().name() : null, getPrice(), getCategory(), getDescription());
+        dto.setManufacturer(getManufacturer());
+        return dto;
+    }
+}
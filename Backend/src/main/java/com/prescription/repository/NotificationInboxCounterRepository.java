@@ -0,0 +1,26 @@
+package com.prescription.repository;
+
+import com.prescription.entity.NotificationInboxCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface NotificationInboxCounterRepository extends JpaRepository<NotificationInboxCounter, Long> {
+
+    /**
+     * Applies an unread delta in place. Returns 0 if the user has no counter row yet.
+     */
+    @Modifying
+    @Query("UPDATE NotificationInboxCounter c SET c.unreadCount = c.unreadCount + :delta, c.updatedAt = :now " +
+            "WHERE c.userId = :userId")
+    int applyDelta(@Param("userId") Long userId, @Param("delta") long delta, @Param("now") LocalDateTime now);
+
+    @Query("SELECT c.userId FROM NotificationInboxCounter c")
+    List<Long> findAllUserIds();
+}
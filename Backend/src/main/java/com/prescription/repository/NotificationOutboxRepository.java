@@ -0,0 +1,27 @@
+package com.prescription.repository;
+
+import com.prescription.entity.NotificationOutbox;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+
+    /**
+     * Oldest rows due for delivery, locked so that another instance draining at the
+     * same time waits and then no longer sees the rows this one delivered. Rows
+     * waiting out a retry backoff and dead-lettered rows are left out.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM NotificationOutbox o WHERE o.deadLetteredAt IS NULL " +
+            "AND (o.nextAttemptAt IS NULL OR o.nextAttemptAt <= :now) ORDER BY o.id")
+    List<NotificationOutbox> findDueForUpdate(@Param("now") LocalDateTime now, Pageable pageable);
+}
@@ -1,19 +1,74 @@
 package com.prescription.repository;
 
 import com.prescription.entity.Notification;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, UUID> {
-    List<Notification> findByUserIdOrderByCreatedAtDesc(Long userId);
-    List<Notification> findByUserIdAndIsReadFalseOrderByCreatedAtDesc(Long userId);
+    List<Notification> findByUserIdOrderByCreatedAtDescIdDesc(Long userId, Pageable pageable);
+    List<Notification> findByUserIdAndIsReadFalseOrderByCreatedAtDescIdDesc(Long userId, Pageable pageable);
     long countByUserIdAndIsReadFalse(Long userId);
     List<Notification> findByAppointmentIdOrderByCreatedAtDesc(Long appointmentId);
     List<Notification> findByPrescriptionIdOrderByCreatedAtDesc(Long prescriptionId);
     List<Notification> findByPrescriptionIdAndReminderTimeAndType(Long prescriptionId, LocalTime reminderTime, Notification.NotificationType type);
+
+    // Served by idx_notifications_type_reminder_time
+    List<Notification> findByTypeAndReminderTime(Notification.NotificationType type, LocalTime reminderTime);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.createdAt = :createdAt WHERE n.id IN :ids")
+    int updateCreatedAtByIdIn(@Param("ids") Collection<UUID> ids, @Param("createdAt") LocalDateTime createdAt);
+
+    // Read-state changes only touch unread rows, so the returned count is the unread delta
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.id IN :ids AND n.isRead = false")
+    int markReadByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.isRead = true WHERE n.userId = :userId AND n.isRead = false")
+    int markAllReadByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.id = :id")
+    int deleteOneById(@Param("id") UUID id);
+
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.userId = :userId AND n.isRead = false")
+    int deleteUnreadByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.userId = :userId")
+    int deleteAllByUserId(@Param("userId") Long userId);
+
+    /**
+     * Oldest notifications of a type created before the cutoff, locked for deletion.
+     * Rows another purge has locked are skipped (lock timeout -2 is SKIP LOCKED where
+     * the database supports it), so concurrent purges never pick the same rows.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT n FROM Notification n WHERE n.type = :type AND n.createdAt < :cutoff ORDER BY n.createdAt")
+    List<Notification> findExpiredForUpdate(@Param("type") Notification.NotificationType type,
+                                            @Param("cutoff") LocalDateTime cutoff,
+                                            Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<UUID> ids);
 }
\ No newline at end of file
@@ -2,12 +2,22 @@ package com.prescription.repository;
 
 import com.prescription.entity.PrescriptionMedicine;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 // Prescription Medicine Repository
 @Repository
 public interface PrescriptionMedicineRepository extends JpaRepository<PrescriptionMedicine, Long> {
     List<PrescriptionMedicine> findByPrescriptionId(Long prescriptionId);
+
+    /**
+     * Line items of several prescriptions with their timings, in one query.
+     */
+    @Query("SELECT DISTINCT pm FROM PrescriptionMedicine pm LEFT JOIN FETCH pm.medicineTimings " +
+            "WHERE pm.prescription.id IN :prescriptionIds ORDER BY pm.id")
+    List<PrescriptionMedicine> findWithTimingsByPrescriptionIdIn(@Param("prescriptionIds") Collection<Long> prescriptionIds);
 }
@@ -1,11 +1,15 @@
 package com.prescription.repository;
 
 import com.prescription.entity.Prescription;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 // Prescription Repository
@@ -22,4 +26,31 @@ public interface PrescriptionRepository extends JpaRepository<Prescription, Long
 
     @Query("SELECT DISTINCT p.patient.id FROM Prescription p WHERE p.doctor.id = :doctorId")
     Set<Long> findPatientIdsByDoctorId(Long doctorId);
+
+    @Query("SELECT p.updatedAt AS updatedAt, d.updatedAt AS doctorUpdatedAt, pt.updatedAt AS patientUpdatedAt, " +
+            "MAX(m.updatedAt) AS medicinesUpdatedAt, MAX(g.updatedAt) AS genericsUpdatedAt " +
+            "FROM Prescription p JOIN p.doctor d JOIN p.patient pt " +
+            "LEFT JOIN p.prescriptionMedicines pm LEFT JOIN pm.medicine m LEFT JOIN m.medicineGeneric g " +
+            "WHERE p.id = :id GROUP BY p.id, p.updatedAt, d.updatedAt, pt.updatedAt")
+    Optional<PrescriptionVersionRow> findVersionById(@Param("id") Long id);
+
+    // Keyset pages: rows strictly after the (createdAt, id) cursor, with doctor and patient fetched
+
+    @Query("SELECT p FROM Prescription p JOIN FETCH p.doctor JOIN FETCH p.patient " +
+            "WHERE p.doctor.id = :doctorId " +
+            "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Prescription> findDoctorPageByCreatedAtDesc(@Param("doctorId") Long doctorId,
+                                                     @Param("createdAt") LocalDateTime createdAt,
+                                                     @Param("id") Long id,
+                                                     Pageable pageable);
+
+    @Query("SELECT p FROM Prescription p JOIN FETCH p.doctor JOIN FETCH p.patient " +
+            "WHERE p.patient.id = :patientId " +
+            "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Prescription> findPatientPageByCreatedAtDesc(@Param("patientId") Long patientId,
+                                                      @Param("createdAt") LocalDateTime createdAt,
+                                                      @Param("id") Long id,
+                                                      Pageable pageable);
 }
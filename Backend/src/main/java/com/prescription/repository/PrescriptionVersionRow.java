@@ -0,0 +1,21 @@
+package com.prescription.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Last-modified times of a prescription, of the doctor and patient shown on it and
+ * of the newest medicine and generic it lists, enough to tell whether a rendered
+ * copy is still current.
+ */
+public interface PrescriptionVersionRow {
+
+    LocalDateTime getUpdatedAt();
+
+    LocalDateTime getDoctorUpdatedAt();
+
+    LocalDateTime getPatientUpdatedAt();
+
+    LocalDateTime getMedicinesUpdatedAt();
+
+    LocalDateTime getGenericsUpdatedAt();
+}
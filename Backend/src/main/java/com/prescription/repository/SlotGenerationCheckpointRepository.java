@@ -0,0 +1,9 @@
+package com.prescription.repository;
+
+import com.prescription.entity.SlotGenerationCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SlotGenerationCheckpointRepository extends JpaRepository<SlotGenerationCheckpoint, Long> {
+}
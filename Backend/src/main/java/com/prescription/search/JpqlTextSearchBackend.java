@@ -0,0 +1,53 @@
+package com.prescription.search;
+
+import com.prescription.repository.HospitalRepository;
+import com.prescription.repository.MedicineGenericRepository;
+import com.prescription.repository.MedicineRepository;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Portable backend using JPQL {@code LIKE}. Ranks prefix matches first, then shorter
+ * names. Used on H2 and wherever PostgreSQL trigram search is not available.
+ */
+public class JpqlTextSearchBackend implements TextSearchBackend {
+
+    private final MedicineRepository medicineRepository;
+    private final MedicineGenericRepository medicineGenericRepository;
+    private final HospitalRepository hospitalRepository;
+
+    public JpqlTextSearchBackend(MedicineRepository medicineRepository,
+                                 MedicineGenericRepository medicineGenericRepository,
+                                 HospitalRepository hospitalRepository) {
+        this.medicineRepository = medicineRepository;
+        this.medicineGenericRepository = medicineGenericRepository;
+        this.hospitalRepository = hospitalRepository;
+    }
+
+    @Override
+    public List<Long> search(Target target, String term, Pageable pageable) {
+        if (term == null || term.trim().isEmpty()) {
+            return switch (target) {
+                case MEDICINE -> medicineRepository.findIdsOrderByName(pageable);
+                case GENERIC -> medicineGenericRepository.findIdsOrderByName(pageable);
+                case HOSPITAL -> hospitalRepository.findIdsOrderByName(pageable);
+            };
+        }
+
+        String normalized = term.trim().toLowerCase(Locale.ROOT);
+        String pattern = "%" + normalized + "%";
+        String prefix = normalized + "%";
+        return switch (target) {
+            case MEDICINE -> medicineRepository.searchIdsRanked(pattern, prefix, pageable);
+            case GENERIC -> medicineGenericRepository.searchIdsRanked(pattern, prefix, pageable);
+            case HOSPITAL -> hospitalRepository.searchIdsRanked(pattern, prefix, pageable);
+        };
+    }
+
+    @Override
+    public String name() {
+        return "jpql";
+    }
+}
@@ -0,0 +1,129 @@
+package com.prescription.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * PostgreSQL backend using pg_trgm GIN indexes for substring and fuzzy matches and
+ * {@code tsvector} ranking for whole-word matches.
+ *
+ * The extension and indexes are created once the schema is up. Until that has
+ * succeeded, or if it fails (for example when the database user may not create
+ * extensions), searches are answered by the JPQL fallback.
+ */
+@Slf4j
+public class PostgresTextSearchBackend implements TextSearchBackend {
+
+    private static final List<String> SETUP_STATEMENTS = List.of(
+            "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+            "CREATE INDEX IF NOT EXISTS idx_medicines_name_trgm ON medicines USING gin (lower(name) gin_trgm_ops)",
+            "CREATE INDEX IF NOT EXISTS idx_medicines_name_fts ON medicines USING gin (to_tsvector('simple', name))",
+            "CREATE INDEX IF NOT EXISTS idx_medicine_generics_name_trgm ON medicine_generics USING gin (lower(generic_name) gin_trgm_ops)",
+            "CREATE INDEX IF NOT EXISTS idx_medicine_generics_name_fts ON medicine_generics USING gin (to_tsvector('simple', generic_name))",
+            "CREATE INDEX IF NOT EXISTS idx_hospitals_name_trgm ON hospitals USING gin (lower(name) gin_trgm_ops)",
+            "CREATE INDEX IF NOT EXISTS idx_hospitals_name_fts ON hospitals USING gin (to_tsvector('simple', coalesce(name, '')))"
+    );
+
+    // Parameters: pattern, pattern, term, term, term, term, prefix, term, term, term, term
+    private static final String MEDICINE_SQL =
+            "SELECT m.id FROM medicines m JOIN medicine_generics g ON g.id = m.generic_id " +
+            "WHERE lower(m.name) LIKE ? OR lower(g.generic_name) LIKE ? " +
+            "OR lower(m.name) % ? OR lower(g.generic_name) % ? " +
+            "OR to_tsvector('simple', m.name) @@ plainto_tsquery('simple', ?) " +
+            "OR to_tsvector('simple', g.generic_name) @@ plainto_tsquery('simple', ?) " +
+            "ORDER BY (CASE WHEN lower(m.name) LIKE ? THEN 1 ELSE 0 END) " +
+            "+ greatest(similarity(lower(m.name), ?), similarity(lower(g.generic_name), ?)) " +
+            "+ ts_rank(to_tsvector('simple', m.name), plainto_tsquery('simple', ?)) " +
+            "+ ts_rank(to_tsvector('simple', g.generic_name), plainto_tsquery('simple', ?)) DESC, m.id";
+
+    // Parameters: pattern, term, term, prefix, term, term
+    private static final String GENERIC_SQL =
+            "SELECT g.id FROM medicine_generics g " +
+            "WHERE lower(g.generic_name) LIKE ? OR lower(g.generic_name) % ? " +
+            "OR to_tsvector('simple', g.generic_name) @@ plainto_tsquery('simple', ?) " +
+            "ORDER BY (CASE WHEN lower(g.generic_name) LIKE ? THEN 1 ELSE 0 END) " +
+            "+ similarity(lower(g.generic_name), ?) " +
+            "+ ts_rank(to_tsvector('simple', g.generic_name), plainto_tsquery('simple', ?)) DESC, g.id";
+
+    // Parameters: pattern, term, term, prefix, term, term
+    private static final String HOSPITAL_SQL =
+            "SELECT h.id FROM hospitals h " +
+            "WHERE lower(h.name) LIKE ? OR lower(h.name) % ? " +
+            "OR to_tsvector('simple', coalesce(h.name, '')) @@ plainto_tsquery('simple', ?) " +
+            "ORDER BY (CASE WHEN lower(h.name) LIKE ? THEN 1 ELSE 0 END) " +
+            "+ similarity(lower(h.name), ?) " +
+            "+ ts_rank(to_tsvector('simple', coalesce(h.name, '')), plainto_tsquery('simple', ?)) DESC, h.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TextSearchBackend fallback;
+    private volatile boolean ready;
+
+    public PostgresTextSearchBackend(JdbcTemplate jdbcTemplate, TextSearchBackend fallback) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fallback = fallback;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            for (String statement : SETUP_STATEMENTS) {
+                jdbcTemplate.execute(statement);
+            }
+            ready = true;
+            log.info("PostgreSQL trigram search enabled");
+        } catch (DataAccessException e) {
+            log.warn("PostgreSQL trigram search unavailable, using {} search: {}", fallback.name(), e.getMessage());
+        }
+    }
+
+    @Override
+    public List<Long> search(Target target, String term, Pageable pageable) {
+        if (!ready || term == null || term.trim().isEmpty()) {
+            // Listing everything by name gains nothing from the text indexes
+            return fallback.search(target, term, pageable);
+        }
+
+        String normalized = term.trim().toLowerCase(Locale.ROOT);
+        String pattern = "%" + normalized + "%";
+        String prefix = normalized + "%";
+
+        String sql;
+        List<Object> args = new ArrayList<>();
+        switch (target) {
+            case MEDICINE -> {
+                sql = MEDICINE_SQL;
+                args.addAll(List.of(pattern, pattern, normalized, normalized, normalized, normalized,
+                        prefix, normalized, normalized, normalized, normalized));
+            }
+            case GENERIC -> {
+                sql = GENERIC_SQL;
+                args.addAll(List.of(pattern, normalized, normalized, prefix, normalized, normalized));
+            }
+            case HOSPITAL -> {
+                sql = HOSPITAL_SQL;
+                args.addAll(List.of(pattern, normalized, normalized, prefix, normalized, normalized));
+            }
+            default -> throw new IllegalArgumentException("Unknown search target: " + target);
+        }
+
+        if (pageable.isPaged()) {
+            sql += " LIMIT ? OFFSET ?";
+            args.add(pageable.getPageSize());
+            args.add(pageable.getOffset());
+        }
+        return jdbcTemplate.queryForList(sql, Long.class, args.toArray());
+    }
+
+    @Override
+    public String name() {
+        return ready ? "postgres" : fallback.name();
+    }
+}
@@ -0,0 +1,18 @@
+package com.prescription.search;
+
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * Name search over catalogue and hospital tables, returning matching ids best match first.
+ * A blank term lists all rows by name. Callers load the rows for the returned ids.
+ */
+public interface TextSearchBackend {
+
+    enum Target { MEDICINE, GENERIC, HOSPITAL }
+
+    List<Long> search(Target target, String term, Pageable pageable);
+
+    String name();
+}
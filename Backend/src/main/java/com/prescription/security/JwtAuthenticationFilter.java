@@ -1,6 +1,5 @@
 package com.prescription.security;
 
-import com.prescription.util.JwtUtil;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
@@ -22,7 +21,7 @@ import java.util.Collections;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     @Autowired
-    private JwtUtil jwtUtil;
+    private JwtClaimsCache jwtClaimsCache;
 
     // Removed UserService injection as it's not being used
 
@@ -34,11 +33,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
         String jwt = getJwtFromRequest(request);
+        VerifiedJwt verified = StringUtils.hasText(jwt) ? jwtClaimsCache.resolve(jwt) : null;
 
-        if (StringUtils.hasText(jwt) && jwtUtil.validateToken(jwt)) {
-            String email = jwtUtil.getEmailFromToken(jwt);
-            String role = jwtUtil.getRoleFromToken(jwt);
-            Long userId = jwtUtil.getUserIdFromToken(jwt);
+        if (verified != null) {
+            String email = verified.getEmail();
+            String role = verified.getRole();
+            Long userId = verified.getUserId();
 
             if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                 // Create authentication token
@@ -62,7 +62,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
-    private String getJwtFromRequest(HttpServletRequest request) {
+    /**
+     * Token from the Authorization header, or else from the jwt cookie.
+     */
+    public static String getJwtFromRequest(HttpServletRequest request) {
         // First, try to get JWT from Authorization header
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
@@ -0,0 +1,155 @@
+package com.prescription.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of verified tokens keyed by the SHA-256 digest of the raw token,
+ * so repeat requests from the same session skip HMAC verification. Entries are
+ * dropped as soon as the token itself expires.
+ *
+ * Tokens revoked at logout are remembered by digest until they expire and are
+ * rejected even though their signature is still valid. Revocations are local to
+ * this instance. When a signing key is removed, every entry verified with it is
+ * dropped.
+ */
+@Component
+public class JwtClaimsCache {
+
+    private final JwtTokenEngine tokenEngine;
+    private final int maxSize;
+    private final Map<String, VerifiedJwt> entries = new ConcurrentHashMap<>();
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public JwtClaimsCache(JwtTokenEngine tokenEngine,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.jwt.claims-cache.max-size:10000}") int maxSize) {
+        this.tokenEngine = tokenEngine;
+        this.maxSize = maxSize;
+        tokenEngine.onKeyRemoved(this::evictKey);
+
+        FunctionCounter.builder("jwt.claims.cache.hits", hits, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("jwt.claims.cache.misses", misses, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("jwt.claims.cache.evictions", evictions, LongAdder::sum).register(meterRegistry);
+        Gauge.builder("jwt.claims.cache.size", entries, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Returns the verified identity for the token, or null if it is invalid or expired.
+     * The token is parsed and signature-checked at most once while it stays cached.
+     */
+    public VerifiedJwt resolve(String token) {
+        long now = System.currentTimeMillis();
+        String key = digest(token);
+        if (revoked.containsKey(key)) {
+            return null;
+        }
+
+        VerifiedJwt cached = entries.get(key);
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                hits.increment();
+                return cached;
+            }
+            entries.remove(key, cached);
+        }
+        misses.increment();
+
+        VerifiedJwt verified;
+        try {
+            Jws<Claims> jws = tokenEngine.parseJws(token);
+            Claims claims = jws.getBody();
+            verified = new VerifiedJwt(
+                    claims.getSubject(),
+                    claims.get("role", String.class),
+                    claims.get("userId", Long.class),
+                    claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE,
+                    tokenEngine.effectiveKeyId(jws.getHeader().getKeyId())
+            );
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+
+        if (entries.size() >= maxSize) {
+            makeRoom(now);
+        }
+        entries.put(key, verified);
+        if (!tokenEngine.hasKey(verified.getKeyId())) {
+            // The key was removed while this token was being verified
+            entries.remove(key, verified);
+            return null;
+        }
+        return verified;
+    }
+
+    /**
+     * Rejects the token from now until it expires. Invalid tokens are ignored.
+     */
+    public void revoke(String token) {
+        VerifiedJwt verified = resolve(token);
+        if (verified == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> now >= expiresAt);
+
+        String key = digest(token);
+        revoked.put(key, verified.getExpiresAtMillis());
+        entries.remove(key);
+    }
+
+    private void evictKey(String keyId) {
+        entries.values().removeIf(entry -> keyId.equals(entry.getKeyId()));
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private void makeRoom(long now) {
+        entries.values().removeIf(entry -> entry.isExpired(now));
+        revoked.values().removeIf(expiresAt -> now >= expiresAt);
+
+        // Still full of live sessions: drop arbitrary entries down to 90% of capacity
+        Iterator<String> it = entries.keySet().iterator();
+        int target = (int) (maxSize * 0.9);
+        while (entries.size() > target && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] hash = md.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
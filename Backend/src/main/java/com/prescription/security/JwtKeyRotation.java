@@ -0,0 +1,107 @@
+package com.prescription.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Rotates JWT keys from a key file without a restart.
+ *
+ * The file named by app.jwt.keys-file is a properties file with one
+ * {@code key.<kid>=<secret>} line per key and {@code active=<kid>} naming the key
+ * that signs new tokens. It is re-read whenever it changes; once in use it is the
+ * whole key set, so a key left out of it is revoked. Keep an old key listed until
+ * the tokens it signed have expired. Every instance reading the same file converges
+ * on the same keys. Without a key file, only app.jwt.secret is used.
+ */
+@Slf4j
+@Component
+public class JwtKeyRotation {
+
+    private static final String KEY_PREFIX = "key.";
+
+    private final JwtTokenEngine tokenEngine;
+    private final String keysFile;
+
+    private long loadedModified = -1;
+
+    public JwtKeyRotation(JwtTokenEngine tokenEngine,
+                          @Value("${app.jwt.keys-file:}") String keysFile) {
+        this.tokenEngine = tokenEngine;
+        this.keysFile = keysFile;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        reloadIfChanged();
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.keys-reload-interval-ms:60000}")
+    public void reloadIfChanged() {
+        if (keysFile.isBlank()) {
+            return;
+        }
+        try {
+            long modified = Files.getLastModifiedTime(Path.of(keysFile)).toMillis();
+            if (modified != loadedModified) {
+                reload();
+            }
+        } catch (IOException | RuntimeException e) {
+            // Keep the current keys; a broken file must not lock everyone out
+            log.error("JWT key file {} could not be applied: {}", keysFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Applies the key file now. Returns the active key id.
+     */
+    public synchronized String reload() throws IOException {
+        if (keysFile.isBlank()) {
+            throw new IllegalStateException("app.jwt.keys-file is not configured");
+        }
+        Path path = Path.of(keysFile);
+        long modified = Files.getLastModifiedTime(path).toMillis();
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+
+        Map<String, String> secrets = new HashMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith(KEY_PREFIX) && name.length() > KEY_PREFIX.length()) {
+                secrets.put(name.substring(KEY_PREFIX.length()), properties.getProperty(name).trim());
+            }
+        }
+        String active = properties.getProperty("active", "").trim();
+        if (!secrets.containsKey(active)) {
+            throw new IllegalStateException("Active JWT key id '" + active + "' is not listed in the key file");
+        }
+
+        // Register before activating, activate before removing, so no step leaves tokens unverifiable
+        secrets.forEach(tokenEngine::registerKey);
+        if (!active.equals(tokenEngine.getActiveKeyId())) {
+            tokenEngine.activateKey(active);
+        }
+        for (String keyId : tokenEngine.getKeyIds()) {
+            if (!secrets.containsKey(keyId)) {
+                tokenEngine.removeKey(keyId);
+            }
+        }
+
+        loadedModified = modified;
+        log.info("JWT keys loaded from {}: {} keys, active kid={}", keysFile, secrets.size(), active);
+        return active;
+    }
+}
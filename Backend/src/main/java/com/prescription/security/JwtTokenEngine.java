@@ -0,0 +1,163 @@
+package com.prescription.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Single signing/verification engine shared by {@link com.prescription.util.JwtUtil}
+ * and {@link JwtTokenProvider}.
+ *
+ * HMAC keys are derived once and kept by key id; the parser is built once and is
+ * thread-safe. Issued tokens carry a "kid" header so a new key can be activated at
+ * runtime while tokens signed with older keys keep verifying until they expire.
+ * Keys are rotated by {@link JwtKeyRotation}.
+ */
+@Slf4j
+@Component
+public class JwtTokenEngine {
+
+    private final Map<String, SecretKey> keys = new ConcurrentHashMap<>();
+    private final List<Consumer<String>> keyRemovedListeners = new CopyOnWriteArrayList<>();
+    private final long expirationMs;
+    private final String legacyKeyId;
+    private final JwtParser parser;
+
+    private volatile String activeKeyId;
+
+    public JwtTokenEngine(@Value("${app.jwt.secret}") String secret,
+                          @Value("${app.jwt.key-id:default}") String keyId,
+                          @Value("${app.jwt.expiration}") long expirationMs) {
+        this.expirationMs = expirationMs;
+        this.legacyKeyId = keyId;
+        registerKey(keyId, secret);
+        this.activeKeyId = keyId;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return keyFor(header.getKeyId());
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Issues a signed token with the active key.
+     */
+    public String issue(String subject, Map<String, ?> claims) {
+        long now = System.currentTimeMillis();
+        String keyId = activeKeyId;
+
+        JwtBuilder builder = Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, keyId)
+                .setSubject(subject)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + expirationMs));
+        if (claims != null) {
+            claims.forEach(builder::claim);
+        }
+        return builder.signWith(keys.get(keyId), SignatureAlgorithm.HS512).compact();
+    }
+
+    /**
+     * Verifies signature and expiry and returns the claims.
+     * Throws {@link io.jsonwebtoken.JwtException} if the token is invalid.
+     */
+    public Claims parse(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    /**
+     * Like {@link #parse(String)}, but also returns the header with the key id.
+     */
+    public Jws<Claims> parseJws(String token) {
+        return parser.parseClaimsJws(token);
+    }
+
+    /**
+     * Key id that verified a token with this kid header.
+     */
+    public String effectiveKeyId(String headerKeyId) {
+        return headerKeyId != null ? headerKeyId : legacyKeyId;
+    }
+
+    /**
+     * Adds a verification key. Existing tokens signed with it become valid immediately.
+     */
+    public void registerKey(String keyId, String secret) {
+        keys.put(keyId, Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Switches new tokens to an already registered key. Older keys stay registered
+     * for verification until {@link #removeKey(String)} is called.
+     */
+    public void activateKey(String keyId) {
+        if (!keys.containsKey(keyId)) {
+            throw new IllegalArgumentException("Unknown JWT key id: " + keyId);
+        }
+        activeKeyId = keyId;
+        log.info("JWT signing key rotated to kid={}", keyId);
+    }
+
+    /**
+     * Revokes a key: tokens signed with it stop verifying, and listeners drop
+     * anything they cached for it.
+     */
+    public void removeKey(String keyId) {
+        if (keyId.equals(activeKeyId)) {
+            throw new IllegalArgumentException("Cannot remove the active JWT key");
+        }
+        if (keys.remove(keyId) != null) {
+            keyRemovedListeners.forEach(listener -> listener.accept(keyId));
+            log.info("JWT key kid={} removed", keyId);
+        }
+    }
+
+    public void onKeyRemoved(Consumer<String> listener) {
+        keyRemovedListeners.add(listener);
+    }
+
+    public boolean hasKey(String keyId) {
+        return keys.containsKey(keyId);
+    }
+
+    public Set<String> getKeyIds() {
+        return Set.copyOf(keys.keySet());
+    }
+
+    public String getActiveKeyId() {
+        return activeKeyId;
+    }
+
+    private SecretKey keyFor(String keyId) {
+        // Tokens issued before key ids were introduced have no kid header
+        SecretKey key = keys.get(effectiveKeyId(keyId));
+        if (key == null) {
+            throw new SignatureException("Unknown JWT key id: " + keyId);
+        }
+        return key;
+    }
+}
@@ -0,0 +1,19 @@
+package com.prescription.security;
+
+import lombok.Value;
+
+/**
+ * Identity extracted from a token whose signature has already been checked.
+ */
+@Value
+public class VerifiedJwt {
+    String email;
+    String role;
+    Long userId;
+    long expiresAtMillis;
+    String keyId;
+
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+}
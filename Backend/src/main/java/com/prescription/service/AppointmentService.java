@@ -1,13 +1,19 @@
 package com.prescription.service;
 
+import com.prescription.dto.CursorPage;
 import com.prescription.entity.Appointment;
+import com.prescription.entity.DoctorDashboardCounters;
 import com.prescription.entity.Hospital;
 import com.prescription.entity.User;
 import com.prescription.repository.AppointmentRepository;
 import com.prescription.repository.HospitalRepository;
 import com.prescription.repository.UserRepository;
+import com.prescription.util.KeysetCursor;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import com.prescription.service.NotificationService;
@@ -17,6 +23,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.function.Function;
 
 @Service
 @Transactional
@@ -33,6 +40,17 @@ public class AppointmentService {
     @Autowired
     private HospitalRepository hospitalRepository;
 
+    @Autowired
+    private DoctorDashboardCounterService dashboardCounterService;
+
+    private static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    @Value("${app.appointments.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${app.appointments.page.max-size:200}")
+    private int maxPageSize;
+
     // Existing methods from previous implementation...
 
     // Additional methods for the controller
@@ -68,8 +86,10 @@ public class AppointmentService {
             if (appointment.getPatient().getId().equals(patientId) &&
                     (appointment.getStatus() == Appointment.Status.REQUESTED ||
                             appointment.getStatus() == Appointment.Status.SCHEDULED)) {
+                Appointment.Status previousStatus = appointment.getStatus();
                 appointment.setStatus(Appointment.Status.CANCELLED);
                 appointmentRepository.save(appointment);
+                dashboardCounterService.onAppointmentStatusChanged(appointment, previousStatus);
 
                 // Send cancellation notifications
                 try {
@@ -109,6 +129,7 @@ public class AppointmentService {
                     appointment.getStatus() == Appointment.Status.REQUESTED) {
                 appointment.setStatus(Appointment.Status.CANCELLED);
                 appointmentRepository.save(appointment);
+                dashboardCounterService.onAppointmentStatusChanged(appointment, Appointment.Status.REQUESTED);
 
                 // Send rejection notification to patient
                 try {
@@ -138,11 +159,13 @@ public class AppointmentService {
             if (appointment.getDoctor().getId().equals(doctorId) &&
                     (appointment.getStatus() == Appointment.Status.SCHEDULED ||
                             appointment.getStatus() == Appointment.Status.CONFIRMED)) {
+                Appointment.Status previousStatus = appointment.getStatus();
                 appointment.setStatus(Appointment.Status.COMPLETED);
                 if (notes != null && !notes.trim().isEmpty()) {
                     appointment.setNotes(notes);
                 }
                 appointmentRepository.save(appointment);
+                dashboardCounterService.onAppointmentStatusChanged(appointment, previousStatus);
                 return true;
             }
         }
@@ -150,77 +173,32 @@ public class AppointmentService {
     }
 
     public Map<String, Object> getAppointmentStatistics(Long doctorId) {
-        User doctor = userRepository.findById(doctorId)
-                .orElseThrow(() -> new EntityNotFoundException("Doctor not found"));
+        if (!userRepository.existsById(doctorId)) {
+            throw new EntityNotFoundException("Doctor not found");
+        }
 
         Map<String, Object> stats = new HashMap<>();
 
-        // Get all appointments for the doctor
-        List<Appointment> allAppointments = appointmentRepository.findByDoctor(doctor);
-
-        // Calculate statistics
-        long totalAppointments = allAppointments.size();
-        long pendingRequests = allAppointments.stream()
-                .filter(apt -> apt.getStatus() == Appointment.Status.REQUESTED)
-                .count();
-        long scheduledAppointments = allAppointments.stream()
-                .filter(apt -> apt.getStatus() == Appointment.Status.SCHEDULED ||
-                        apt.getStatus() == Appointment.Status.CONFIRMED)
-                .count();
-        long completedAppointments = allAppointments.stream()
-                .filter(apt -> apt.getStatus() == Appointment.Status.COMPLETED)
-                .count();
-        long cancelledAppointments = allAppointments.stream()
-                .filter(apt -> apt.getStatus() == Appointment.Status.CANCELLED)
-                .count();
-
-        // Today's appointments
         LocalDate today = LocalDate.now();
         LocalDateTime startOfDay = today.atStartOfDay();
         LocalDateTime endOfDay = today.atTime(23, 59, 59);
-
-        long todaysAppointments = allAppointments.stream()
-                .filter(apt -> apt.getScheduledTime() != null &&
-                        apt.getScheduledTime().isAfter(startOfDay) &&
-                        apt.getScheduledTime().isBefore(endOfDay))
-                .count();
-
-        // This week's appointments
         LocalDateTime startOfWeek = today.atStartOfDay().minusDays(today.getDayOfWeek().getValue() - 1);
         LocalDateTime endOfWeek = startOfWeek.plusDays(6).withHour(23).withMinute(59).withSecond(59);
 
-        long thisWeekAppointments = allAppointments.stream()
-                .filter(apt -> apt.getScheduledTime() != null &&
-                        apt.getScheduledTime().isAfter(startOfWeek) &&
-                        apt.getScheduledTime().isBefore(endOfWeek))
-                .count();
-
-        // New patients (first-time appointments)
-        Set<Long> uniquePatients = new HashSet<>();
-        long newPatients = 0;
-        for (Appointment apt : allAppointments) {
-            if (apt.getPatient() != null) {
-                Long patientId = apt.getPatient().getId();
-                if (!uniquePatients.contains(patientId)) {
-                    uniquePatients.add(patientId);
-                    if (apt.getStatus() == Appointment.Status.REQUESTED ||
-                            apt.getStatus() == Appointment.Status.SCHEDULED) {
-                        newPatients++;
-                    }
-                }
-            }
-        }
+        // Status and patient counts are maintained incrementally; only the date
+        // windows are counted here, as bounded range scans on (doctor, scheduled_time)
+        DoctorDashboardCounters counters = dashboardCounterService.getCounters(doctorId);
 
         // Populate stats map
-        stats.put("totalAppointments", totalAppointments);
-        stats.put("pendingRequests", pendingRequests);
-        stats.put("scheduledAppointments", scheduledAppointments);
-        stats.put("completedAppointments", completedAppointments);
-        stats.put("cancelledAppointments", cancelledAppointments);
-        stats.put("todaysAppointments", todaysAppointments);
-        stats.put("thisWeekAppointments", thisWeekAppointments);
-        stats.put("newPatients", newPatients);
-        stats.put("totalUniquePatients", uniquePatients.size());
+        stats.put("totalAppointments", counters.getTotalAppointments());
+        stats.put("pendingRequests", counters.getPendingRequests());
+        stats.put("scheduledAppointments", counters.getScheduledAppointments());
+        stats.put("completedAppointments", counters.getCompletedAppointments());
+        stats.put("cancelledAppointments", counters.getCancelledAppointments());
+        stats.put("todaysAppointments", appointmentRepository.countForDoctorBetween(doctorId, startOfDay, endOfDay));
+        stats.put("thisWeekAppointments", appointmentRepository.countForDoctorBetween(doctorId, startOfWeek, endOfWeek));
+        stats.put("newPatients", counters.getNewPatients());
+        stats.put("totalUniquePatients", (int) counters.getAppointmentPatients());
 
         return stats;
     }
@@ -257,6 +235,7 @@ public class AppointmentService {
         appointment.setUpdatedAt(LocalDateTime.now());
 
         Appointment savedAppointment = appointmentRepository.save(appointment);
+        dashboardCounterService.onAppointmentCreated(savedAppointment);
 
         // Send notifications after successful booking
         try {
@@ -323,6 +302,7 @@ public class AppointmentService {
         appointment.setStatus(Appointment.Status.SCHEDULED);
 
         Appointment savedAppointment = appointmentRepository.save(appointment);
+        dashboardCounterService.onAppointmentStatusChanged(savedAppointment, Appointment.Status.REQUESTED);
 
         // Send confirmation notification to patient
         try {
@@ -353,6 +333,63 @@ public class AppointmentService {
         return appointmentRepository.findByDoctorAndStatusInOrderByScheduledTimeAsc(doctor, confirmedStatuses);
     }
 
+    // ============= KEYSET PAGES =============
+
+    // Patient history, newest first
+    public CursorPage<Appointment> getPatientAppointmentsPage(Long patientId, String cursor, Integer limit) {
+        KeysetCursor after = KeysetCursor.decodeOr(cursor, KeysetCursor.FIRST_DESCENDING);
+        int size = pageSize(cursor, limit);
+        List<Appointment> rows = appointmentRepository.findPatientPageByCreatedAtDesc(
+                patientId, after.position(), after.id(), pageRequest(size));
+        return toPage(rows, size, Appointment::getCreatedAt);
+    }
+
+    // Doctor's appointments in the given statuses, newest first
+    public CursorPage<Appointment> getDoctorAppointmentsPage(Long doctorId, Collection<Appointment.Status> statuses,
+                                                             String cursor, Integer limit) {
+        KeysetCursor after = KeysetCursor.decodeOr(cursor, KeysetCursor.FIRST_DESCENDING);
+        int size = pageSize(cursor, limit);
+        List<Appointment> rows = appointmentRepository.findDoctorPageByCreatedAtDesc(
+                doctorId, statuses, after.position(), after.id(), pageRequest(size));
+        return toPage(rows, size, Appointment::getCreatedAt);
+    }
+
+    // Doctor's scheduled and confirmed appointments, earliest first
+    public CursorPage<Appointment> getConfirmedAppointmentsPage(Long doctorId, String cursor, Integer limit) {
+        KeysetCursor after = KeysetCursor.decodeOr(cursor, KeysetCursor.FIRST_ASCENDING);
+        int size = pageSize(cursor, limit);
+        List<Appointment> rows = appointmentRepository.findDoctorPageByScheduledTimeAsc(
+                doctorId, EnumSet.of(Appointment.Status.SCHEDULED, Appointment.Status.CONFIRMED),
+                after.position(), after.id(), pageRequest(size));
+        return toPage(rows, size, Appointment::getScheduledTime);
+    }
+
+    // Without cursor or limit the whole listing is returned, as before paging existed
+    private int pageSize(String cursor, Integer limit) {
+        if (limit == null) {
+            return cursor == null || cursor.isBlank() ? UNBOUNDED : defaultPageSize;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        return Math.min(limit, maxPageSize);
+    }
+
+    private Pageable pageRequest(int size) {
+        return size == UNBOUNDED ? Pageable.unpaged() : PageRequest.of(0, size + 1);
+    }
+
+    // One extra row is fetched to tell whether another page follows
+    private CursorPage<Appointment> toPage(List<Appointment> rows, int size,
+                                           Function<Appointment, LocalDateTime> position) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        List<Appointment> items = rows.subList(0, size);
+        Appointment last = items.get(size - 1);
+        return new CursorPage<>(items, new KeysetCursor(position.apply(last), last.getId()).encode());
+    }
+
     // Get appointments for a specific date (existing method)
     public List<Appointment> getAppointmentsByDate(Long doctorId, LocalDate date) {
         User doctor = userRepository.findById(doctorId)
@@ -17,6 +17,7 @@ public class AppointmentSettingsService {
 
     private final AppointmentSettingsRepository appointmentSettingsRepository;
     private final UserRepository userRepository;
+    private final VirtualAvailabilityCalendar availabilityCalendar;
 
     /**
      * Get appointment settings for a specific doctor
@@ -39,6 +40,9 @@ public class AppointmentSettingsService {
      */
     @Transactional
     public AppointmentSettings saveSettings(AppointmentSettings settings) {
+        if (settings.getDoctor() != null) {
+            availabilityCalendar.invalidate(settings.getDoctor().getId());
+        }
         return appointmentSettingsRepository.save(settings);
     }
 
@@ -57,6 +61,7 @@ public class AppointmentSettingsService {
         existingSettings.setAdvanceBookingDays(updatedSettings.getAdvanceBookingDays());
         existingSettings.setBufferTimeMinutes(updatedSettings.getBufferTimeMinutes());
 
+        availabilityCalendar.invalidate(doctorId);
         return appointmentSettingsRepository.save(existingSettings);
     }
 
@@ -66,6 +71,7 @@ public class AppointmentSettingsService {
     @Transactional
     public void deleteSettings(Long doctorId) {
         appointmentSettingsRepository.deleteByDoctorId(doctorId);
+        availabilityCalendar.invalidate(doctorId);
     }
 
     /**
@@ -6,13 +6,16 @@ import com.prescription.dto.DoctorAvailabilitySlotDTO;
 import com.prescription.dto.AppointmentSettingsDTO;
 import com.prescription.entity.*;
 import com.prescription.repository.*;
+import com.prescription.util.AvailabilityRuleCache;
 import com.prescription.util.AvailabilityUtil;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.*;
 
@@ -35,60 +38,62 @@ public class DoctorAvailabilityService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private SlotHorizonScheduler slotHorizonScheduler;
+
+    @Autowired
+    private VirtualAvailabilityCalendar availabilityCalendar;
+
+    @Autowired
+    private AvailabilityRuleCache ruleCache;
+
+    /**
+     * "materialized" keeps slots as doctor_availability_slots rows;
+     * "virtual" computes them on read and persists only bookings.
+     */
+    @Value("${app.availability.mode:materialized}")
+    private String availabilityMode;
+
     // ============= TEMPLATE MANAGEMENT =============
 
     public AvailabilityTemplate createTemplate(Long doctorId, AvailabilityTemplateDTO dto) {
-        System.out.println(2);
         User doctor = userRepository.findById(doctorId)
                 .orElseThrow(() -> new EntityNotFoundException("Doctor not found"));
 
-        System.out.println(3);
         AvailabilityTemplate template = new AvailabilityTemplate();
         template.setDoctor(doctor);
         template.setTemplateName(dto.getTemplateName());
-        System.out.println(3.1);
-        System.out.println(dto.getScheduleType());
-        System.out.println(dto);
         template.setScheduleType(AvailabilityTemplate.ScheduleType.valueOf(dto.getScheduleType()));
-        System.out.println(3.2);
         template.setStartTime(dto.getStartTime());
-        System.out.println(3.3);
         template.setEndTime(dto.getEndTime());
-        System.out.println(3.4);
         template.setActive(dto.isActive());
-        System.out.println(3.5);
         template.setPriority(dto.getPriority() != null ? dto.getPriority() : 0);
-        System.out.println(4);
 
         // Set schedule-specific fields
-        System.out.println(dto.getScheduleType());
         switch (AvailabilityTemplate.ScheduleType.valueOf(dto.getScheduleType())) {
             case WEEKLY:
-                System.out.println(1);
                 if (dto.getDaysOfWeek() != null) {
                     template.setDaysOfWeek(AvailabilityUtil.formatDaysOfWeek(dto.getDaysOfWeek()));
                 }
                 break;
             case SPECIFIC_DATE_RANGE:
-                System.out.println(2);
                 template.setStartDate(dto.getStartDate());
                 template.setEndDate(dto.getEndDate());
                 break;
             case SPECIFIC_DATES:
-                System.out.println(3);
                 if (dto.getSpecificDates() != null) {
                     template.setSpecificDates(AvailabilityUtil.formatSpecificDates(dto.getSpecificDates()));
                 }
                 break;
         }
-        System.out.println(5);
 
         AvailabilityTemplate savedTemplate = templateRepository.save(template);
-        System.out.println(6);
 
-        // Generate slots for the next 30 days
-        generateSlotsForTemplate(savedTemplate, LocalDate.now(), LocalDate.now().plusDays(30));
-        System.out.println(7);
+        availabilityCalendar.invalidate(doctorId);
+        if (!isVirtualMode()) {
+            // Slots are generated in the background once this transaction commits
+            slotHorizonScheduler.requestRegeneration(doctorId);
+        }
 
         return savedTemplate;
     }
@@ -130,9 +135,12 @@ public class DoctorAvailabilityService {
 
         AvailabilityTemplate savedTemplate = templateRepository.save(template);
 
-        // Regenerate slots
-        slotRepository.deleteByDoctorAndGeneratedFromTemplateId(template.getDoctor(), templateId);
-        generateSlotsForTemplate(savedTemplate, LocalDate.now(), LocalDate.now().plusDays(30));
+        availabilityCalendar.invalidate(template.getDoctor().getId());
+        if (!isVirtualMode()) {
+            // Regenerate slots
+            slotRepository.deleteByDoctorAndGeneratedFromTemplateId(template.getDoctor(), templateId);
+            slotHorizonScheduler.requestRegeneration(template.getDoctor().getId());
+        }
 
         return savedTemplate;
     }
@@ -141,10 +149,14 @@ public class DoctorAvailabilityService {
         AvailabilityTemplate template = templateRepository.findById(templateId)
                 .orElseThrow(() -> new EntityNotFoundException("Template not found"));
 
-        // Delete associated slots
-        slotRepository.deleteByDoctorAndGeneratedFromTemplateId(template.getDoctor(), templateId);
+        availabilityCalendar.invalidate(template.getDoctor().getId());
+        if (!isVirtualMode()) {
+            // Delete associated slots
+            slotRepository.deleteByDoctorAndGeneratedFromTemplateId(template.getDoctor(), templateId);
+        }
 
         templateRepository.delete(template);
+        ruleCache.evict(templateId);
     }
 
     public List<AvailabilityTemplate> getDoctorTemplates(Long doctorId) {
@@ -168,6 +180,7 @@ public class DoctorAvailabilityService {
         exception.setEndTime(dto.getEndTime());
         exception.setReason(dto.getReason());
 
+        availabilityCalendar.invalidate(doctorId);
         return exceptionRepository.save(exception);
     }
 
@@ -181,10 +194,13 @@ public class DoctorAvailabilityService {
         exception.setEndTime(dto.getEndTime());
         exception.setReason(dto.getReason());
 
+        availabilityCalendar.invalidate(exception.getDoctor().getId());
         return exceptionRepository.save(exception);
     }
 
     public void deleteException(Long exceptionId) {
+        exceptionRepository.findById(exceptionId)
+                .ifPresent(exception -> availabilityCalendar.invalidate(exception.getDoctor().getId()));
         exceptionRepository.deleteById(exceptionId);
     }
 
@@ -201,6 +217,9 @@ public class DoctorAvailabilityService {
         User doctor = userRepository.findById(doctorId)
                 .orElseThrow(() -> new EntityNotFoundException("Doctor not found"));
 
+        if (isVirtualMode()) {
+            return availabilityCalendar.getSlots(doctor, startDate, endDate);
+        }
         return slotRepository.findByDoctorAndSlotDateBetweenOrderBySlotDateAscStartTimeAsc(doctor, startDate, endDate);
     }
 
@@ -208,22 +227,31 @@ public class DoctorAvailabilityService {
         User doctor = userRepository.findById(doctorId)
                 .orElseThrow(() -> new EntityNotFoundException("Doctor not found"));
 
+        if (isVirtualMode()) {
+            return availabilityCalendar.getSlots(doctor, date, date);
+        }
         return slotRepository.findByDoctorAndSlotDateOrderByStartTimeAsc(doctor, date);
     }
 
     public DoctorAvailabilitySlot bookSlot(Long slotId) {
+        requireMaterializedSlots();
+        // One conditional UPDATE decides the winner among concurrent callers; one read
+        // returns the slot (after the update, which clears the persistence context) or
+        // tells a missing slot from one that is already taken
+        int updated = slotRepository.compareAndSetStatus(slotId,
+                DoctorAvailabilitySlot.SlotStatus.AVAILABLE,
+                DoctorAvailabilitySlot.SlotStatus.BOOKED,
+                LocalDateTime.now());
         DoctorAvailabilitySlot slot = slotRepository.findById(slotId)
                 .orElseThrow(() -> new EntityNotFoundException("Slot not found"));
-
-        if (slot.getSlotStatus() != DoctorAvailabilitySlot.SlotStatus.AVAILABLE) {
+        if (updated == 0) {
             throw new IllegalStateException("Slot is not available for booking");
         }
-
-        slot.setSlotStatus(DoctorAvailabilitySlot.SlotStatus.BOOKED);
-        return slotRepository.save(slot);
+        return slot;
     }
 
     public DoctorAvailabilitySlot releaseSlot(Long slotId) {
+        requireMaterializedSlots();
         DoctorAvailabilitySlot slot = slotRepository.findById(slotId)
                 .orElseThrow(() -> new EntityNotFoundException("Slot not found"));
 
@@ -259,87 +287,20 @@ public class DoctorAvailabilityService {
         settings.setAdvanceBookingDays(dto.getAdvanceBookingDays());
         settings.setBufferTimeMinutes(dto.getBufferTimeMinutes());
 
+        availabilityCalendar.invalidate(doctorId);
         return settingsRepository.save(settings);
     }
 
     // ============= UTILITY METHODS =============
 
-    private void generateSlotsForTemplate(AvailabilityTemplate template, LocalDate startDate, LocalDate endDate) {
-        AppointmentSettings settings = getOrCreateSettings(template.getDoctor().getId());
-        int slotDuration = settings.getSlotDurationMinutes();
-
-        LocalDate currentDate = startDate;
-        while (!currentDate.isAfter(endDate)) {
-            if (isTemplateApplicableForDate(template, currentDate)) {
-                // Check for exceptions
-                Optional<AvailabilityException> exception = exceptionRepository
-                        .findByDoctorAndExceptionDate(template.getDoctor(), currentDate);
-
-                if (exception.isPresent()) {
-                    if (exception.get().getExceptionType() == AvailabilityException.ExceptionType.UNAVAILABLE) {
-                        currentDate = currentDate.plusDays(1);
-                        continue;
-                    } else if (exception.get().getExceptionType() == AvailabilityException.ExceptionType.CUSTOM_HOURS) {
-                        // Use custom hours from exception
-                        generateSlotsForTimeRange(template.getDoctor(), currentDate,
-                                exception.get().getStartTime(), exception.get().getEndTime(),
-                                slotDuration, template.getId());
-                        currentDate = currentDate.plusDays(1);
-                        continue;
-                    }
-                }
-
-                // Generate slots for template's time range
-                generateSlotsForTimeRange(template.getDoctor(), currentDate,
-                        template.getStartTime(), template.getEndTime(),
-                        slotDuration, template.getId());
-            }
-            currentDate = currentDate.plusDays(1);
-        }
+    private boolean isVirtualMode() {
+        return "virtual".equalsIgnoreCase(availabilityMode);
     }
 
-    private void generateSlotsForTimeRange(User doctor, LocalDate date, LocalTime startTime,
-                                           LocalTime endTime, int slotDuration, Long templateId) {
-        LocalTime current = startTime;
-        while (current.isBefore(endTime)) {
-            LocalTime slotEnd = current.plusMinutes(slotDuration);
-            if (slotEnd.isAfter(endTime)) {
-                break;
-            }
-
-            // Check if slot already exists
-            List<DoctorAvailabilitySlot> existingSlots = slotRepository
-                    .findConflictingSlots(doctor, date, current, slotEnd);
-
-            if (existingSlots.isEmpty()) {
-                DoctorAvailabilitySlot slot = new DoctorAvailabilitySlot();
-                slot.setDoctor(doctor);
-                slot.setSlotDate(date);
-                slot.setStartTime(current);
-                slot.setEndTime(slotEnd);
-                slot.setSlotStatus(DoctorAvailabilitySlot.SlotStatus.AVAILABLE);
-                slot.setGeneratedFromTemplateId(templateId);
-                slotRepository.save(slot);
-            }
-
-            current = slotEnd;
-        }
-    }
-
-    private boolean isTemplateApplicableForDate(AvailabilityTemplate template, LocalDate date) {
-        switch (template.getScheduleType()) {
-            case DAILY:
-                return true;
-            case WEEKLY:
-                Set<Integer> daysOfWeek = AvailabilityUtil.parseDaysOfWeek(template.getDaysOfWeek());
-                return AvailabilityUtil.isDateInDaysOfWeek(date, daysOfWeek);
-            case SPECIFIC_DATE_RANGE:
-                return !date.isBefore(template.getStartDate()) && !date.isAfter(template.getEndDate());
-            case SPECIFIC_DATES:
-                Set<LocalDate> specificDates = AvailabilityUtil.parseSpecificDates(template.getSpecificDates());
-                return specificDates.contains(date);
-            default:
-                return false;
+    private void requireMaterializedSlots() {
+        if (isVirtualMode()) {
+            throw new IllegalStateException(
+                    "Slots have no ids in virtual availability mode; book an appointment for the slot's date and time instead");
         }
     }
 
@@ -349,20 +310,17 @@ public class DoctorAvailabilityService {
         User doctor = userRepository.findById(doctorId)
                 .orElseThrow(() -> new EntityNotFoundException("Doctor not found"));
 
-        // Delete all existing slots
-        List<DoctorAvailabilitySlot> existingSlots = slotRepository
-                .findByDoctorAndSlotDateBetweenOrderBySlotDateAscStartTimeAsc(
-                        doctor, LocalDate.now(), LocalDate.now().plusDays(60));
-
-        slotRepository.deleteAll(existingSlots);
+        availabilityCalendar.invalidate(doctorId);
+        if (isVirtualMode()) {
+            // Nothing is materialized; the next read recomputes from the templates
+            return;
+        }
 
-        // Regenerate slots from all active templates
-        List<AvailabilityTemplate> activeTemplates = templateRepository
-                .findByDoctorAndIsActiveOrderByPriorityDesc(doctor, true);
+        // Delete all existing slots
+        slotRepository.deleteByDoctorAndSlotDateBetween(doctor, LocalDate.now(), LocalDate.now().plusDays(60));
 
-        for (AvailabilityTemplate template : activeTemplates) {
-            generateSlotsForTemplate(template, LocalDate.now(), LocalDate.now().plusDays(60));
-        }
+        // Regenerate slots from all active templates in the background
+        slotHorizonScheduler.requestRegeneration(doctorId);
     }
 
     // ============= DTO CONVERSION METHODS =============
@@ -0,0 +1,291 @@
+package com.prescription.service;
+
+import com.prescription.entity.Appointment;
+import com.prescription.entity.DoctorDashboardCounters;
+import com.prescription.entity.DoctorPatientLink;
+import com.prescription.repository.AppointmentRepository;
+import com.prescription.repository.DoctorDashboardCountersRepository;
+import com.prescription.repository.DoctorPatientLinkRepository;
+import com.prescription.repository.PrescriptionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Maintains {@link DoctorDashboardCounters} from appointment and prescription events.
+ *
+ * Events are applied after the business transaction commits, in their own
+ * transaction, as in-place increments; a failure there never affects the booking
+ * or prescription itself. A doctor without a counters row is rebuilt from the
+ * source tables on first use, and a nightly reconciliation rebuilds every row to
+ * correct any drift.
+ */
+@Slf4j
+@Service
+public class DoctorDashboardCounterService {
+
+    private static final Set<Appointment.Status> NEW_PATIENT_STATUSES =
+            EnumSet.of(Appointment.Status.REQUESTED, Appointment.Status.SCHEDULED);
+
+    @Autowired
+    private DoctorDashboardCountersRepository countersRepository;
+
+    @Autowired
+    private DoctorPatientLinkRepository linkRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private PrescriptionRepository prescriptionRepository;
+
+    private final TransactionTemplate newTransaction;
+
+    public DoctorDashboardCounterService(PlatformTransactionManager transactionManager) {
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // ============= EVENTS =============
+
+    public void onAppointmentCreated(Appointment appointment) {
+        Long doctorId = appointment.getDoctor().getId();
+        Long patientId = appointment.getPatient().getId();
+        Long appointmentId = appointment.getId();
+        Appointment.Status status = appointment.getStatus();
+
+        afterCommit(doctorId, () -> {
+            Delta delta = new Delta();
+            delta.total = 1;
+            delta.addStatus(status, 1);
+
+            Optional<DoctorPatientLink> existing = linkRepository.findByDoctorIdAndPatientId(doctorId, patientId);
+            DoctorPatientLink link = existing.orElseGet(() -> newLink(doctorId, patientId));
+            if (existing.isEmpty()) {
+                delta.uniquePatients = 1;
+            }
+            if (link.getFirstAppointmentId() == null) {
+                link.setFirstAppointmentId(appointmentId);
+                delta.appointmentPatients = 1;
+                if (NEW_PATIENT_STATUSES.contains(status)) {
+                    delta.newPatients = 1;
+                }
+            }
+            linkRepository.save(link);
+            return delta;
+        });
+    }
+
+    public void onAppointmentStatusChanged(Appointment appointment, Appointment.Status previousStatus) {
+        Long doctorId = appointment.getDoctor().getId();
+        Long patientId = appointment.getPatient().getId();
+        Long appointmentId = appointment.getId();
+        Appointment.Status status = appointment.getStatus();
+        if (status == previousStatus) {
+            return;
+        }
+
+        afterCommit(doctorId, () -> {
+            Delta delta = new Delta();
+            delta.addStatus(previousStatus, -1);
+            delta.addStatus(status, 1);
+
+            boolean isFirstAppointment = linkRepository.findByDoctorIdAndPatientId(doctorId, patientId)
+                    .map(link -> appointmentId.equals(link.getFirstAppointmentId()))
+                    .orElse(false);
+            if (isFirstAppointment) {
+                delta.newPatients = (NEW_PATIENT_STATUSES.contains(status) ? 1 : 0)
+                        - (NEW_PATIENT_STATUSES.contains(previousStatus) ? 1 : 0);
+            }
+            return delta;
+        });
+    }
+
+    public void onPrescriptionCreated(Long doctorId, Long patientId) {
+        afterCommit(doctorId, () -> {
+            Delta delta = new Delta();
+
+            Optional<DoctorPatientLink> existing = linkRepository.findByDoctorIdAndPatientId(doctorId, patientId);
+            DoctorPatientLink link = existing.orElseGet(() -> newLink(doctorId, patientId));
+            if (existing.isEmpty()) {
+                delta.uniquePatients = 1;
+            }
+            if (!link.isHasPrescription()) {
+                link.setHasPrescription(true);
+                linkRepository.save(link);
+            }
+            return delta;
+        });
+    }
+
+    // ============= READS =============
+
+    public DoctorDashboardCounters getCounters(Long doctorId) {
+        Optional<DoctorDashboardCounters> counters = countersRepository.findById(doctorId);
+        if (counters.isPresent()) {
+            return counters.get();
+        }
+        try {
+            return newTransaction.execute(status -> rebuild(doctorId));
+        } catch (DataIntegrityViolationException e) {
+            // Another request rebuilt the row first
+            return countersRepository.findById(doctorId).orElseThrow(() -> e);
+        }
+    }
+
+    // ============= RECONCILIATION =============
+
+    @Scheduled(cron = "${app.dashboard.reconcile.cron:0 0 3 * * *}")
+    public void reconcileAll() {
+        List<Long> doctorIds = countersRepository.findAllDoctorIds();
+        int corrected = 0;
+        for (Long doctorId : doctorIds) {
+            try {
+                DoctorDashboardCounters before = countersRepository.findById(doctorId).orElse(null);
+                DoctorDashboardCounters after = newTransaction.execute(status -> rebuild(doctorId));
+                if (before != null && after != null && !sameCounts(before, after)) {
+                    corrected++;
+                }
+            } catch (Exception e) {
+                log.error("Dashboard counter reconciliation failed for doctor {}", doctorId, e);
+            }
+        }
+        log.info("Reconciled dashboard counters for {} doctors, {} had drifted", doctorIds.size(), corrected);
+    }
+
+    /**
+     * Recomputes the doctor's counters and patient links from appointments and prescriptions.
+     * Must run inside a transaction.
+     */
+    private DoctorDashboardCounters rebuild(Long doctorId) {
+        LocalDateTime now = LocalDateTime.now();
+        AppointmentRepository.DoctorAppointmentTotals stats = appointmentRepository.aggregateTotalsForDoctor(
+                doctorId,
+                Appointment.Status.REQUESTED,
+                Appointment.Status.SCHEDULED,
+                Appointment.Status.CONFIRMED,
+                Appointment.Status.COMPLETED,
+                Appointment.Status.CANCELLED);
+        Long newPatients = appointmentRepository.countNewPatientsForDoctor(doctorId,
+                new ArrayList<>(NEW_PATIENT_STATUSES));
+
+        Map<Long, DoctorPatientLink> links = new HashMap<>();
+        for (Object[] row : appointmentRepository.findFirstAppointmentIdPerPatient(doctorId)) {
+            DoctorPatientLink link = newLink(doctorId, (Long) row[0]);
+            link.setFirstAppointmentId((Long) row[1]);
+            links.put(link.getPatientId(), link);
+        }
+        for (Long patientId : prescriptionRepository.findPatientIdsByDoctorId(doctorId)) {
+            links.computeIfAbsent(patientId, id -> newLink(doctorId, id)).setHasPrescription(true);
+        }
+        linkRepository.deleteByDoctorId(doctorId);
+        linkRepository.flush();
+        linkRepository.saveAll(links.values());
+
+        DoctorDashboardCounters counters = countersRepository.findById(doctorId).orElseGet(() -> {
+            DoctorDashboardCounters created = new DoctorDashboardCounters();
+            created.setDoctorId(doctorId);
+            return created;
+        });
+        counters.setTotalAppointments(orZero(stats.getTotal()));
+        counters.setPendingRequests(orZero(stats.getPending()));
+        counters.setScheduledAppointments(orZero(stats.getScheduled()));
+        counters.setCompletedAppointments(orZero(stats.getCompleted()));
+        counters.setCancelledAppointments(orZero(stats.getCancelled()));
+        counters.setNewPatients(orZero(newPatients));
+        counters.setAppointmentPatients(orZero(stats.getUniquePatients()));
+        counters.setUniquePatients(links.size());
+        counters.setReconciledAt(now);
+        return countersRepository.save(counters);
+    }
+
+    // ============= HELPERS =============
+
+    private void afterCommit(Long doctorId, Supplier<Delta> event) {
+        Runnable apply = () -> {
+            try {
+                newTransaction.executeWithoutResult(status -> {
+                    if (!countersRepository.existsById(doctorId)) {
+                        // First event for this doctor: the rebuild already includes it
+                        rebuild(doctorId);
+                        return;
+                    }
+                    Delta delta = event.get();
+                    countersRepository.applyDeltas(doctorId, delta.total, delta.pending, delta.scheduled,
+                            delta.completed, delta.cancelled, delta.newPatients,
+                            delta.appointmentPatients, delta.uniquePatients);
+                });
+            } catch (Exception e) {
+                // Left for the nightly reconciliation to correct
+                log.warn("Failed to update dashboard counters for doctor {}: {}", doctorId, e.getMessage());
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    private static DoctorPatientLink newLink(Long doctorId, Long patientId) {
+        DoctorPatientLink link = new DoctorPatientLink();
+        link.setDoctorId(doctorId);
+        link.setPatientId(patientId);
+        return link;
+    }
+
+    private static boolean sameCounts(DoctorDashboardCounters a, DoctorDashboardCounters b) {
+        return a.getTotalAppointments() == b.getTotalAppointments()
+                && a.getPendingRequests() == b.getPendingRequests()
+                && a.getScheduledAppointments() == b.getScheduledAppointments()
+                && a.getCompletedAppointments() == b.getCompletedAppointments()
+                && a.getCancelledAppointments() == b.getCancelledAppointments()
+                && a.getNewPatients() == b.getNewPatients()
+                && a.getAppointmentPatients() == b.getAppointmentPatients()
+                && a.getUniquePatients() == b.getUniquePatients();
+    }
+
+    private static long orZero(Long value) {
+        return value != null ? value : 0L;
+    }
+
+    private static class Delta {
+        long total;
+        long pending;
+        long scheduled;
+        long completed;
+        long cancelled;
+        long newPatients;
+        long appointmentPatients;
+        long uniquePatients;
+
+        void addStatus(Appointment.Status status, long amount) {
+            if (status == null) {
+                return;
+            }
+            switch (status) {
+                case REQUESTED -> pending += amount;
+                case SCHEDULED, CONFIRMED -> scheduled += amount;
+                case COMPLETED -> completed += amount;
+                case CANCELLED -> cancelled += amount;
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.prescription.service;
+
+import com.prescription.entity.MedicineGeneric;
+import com.prescription.repository.MedicineGenericRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves generic names to generics by exact normalized name.
+ *
+ * Ids are cached in memory by {@link MedicineGeneric#normalizeName normalized name},
+ * backed by the unique name_key column, and only once the transaction that read or
+ * created them has committed. A missing generic is created in the caller's
+ * transaction, so it is rolled back with the medicine that needed it. If another
+ * request or instance creates the same name first, the unique constraint skips the
+ * second insert (ON CONFLICT DO NOTHING on PostgreSQL; elsewhere the rejected
+ * statement leaves the transaction usable) and the existing row is used, so
+ * concurrent writers always converge on one generic per name.
+ */
+@Slf4j
+@Component
+public class GenericNameResolver {
+
+    private static final String INSERT_GENERIC_SQL =
+            "INSERT INTO medicine_generics (generic_name, name_key, category, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    private static final String INSERT_GENERIC_SKIP_DUPLICATES_SQL = INSERT_GENERIC_SQL + " ON CONFLICT DO NOTHING";
+
+    private final MedicineGenericRepository medicineGenericRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final TransactionTemplate newTransaction;
+    private final Map<String, Long> idsByKey = new ConcurrentHashMap<>();
+
+    private volatile String insertSql;
+
+    public GenericNameResolver(MedicineGenericRepository medicineGenericRepository,
+                               JdbcTemplate jdbcTemplate,
+                               DataSource dataSource,
+                               PlatformTransactionManager transactionManager) {
+        this.medicineGenericRepository = medicineGenericRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Fills name_key on rows created before it existed, then loads the name map.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        for (MedicineGeneric generic : medicineGenericRepository.findByNameKeyIsNull()) {
+            try {
+                newTransaction.executeWithoutResult(status -> {
+                    generic.setNameKey(MedicineGeneric.normalizeName(generic.getGenericName()));
+                    medicineGenericRepository.save(generic);
+                });
+            } catch (DataIntegrityViolationException e) {
+                log.warn("Generic {} '{}' duplicates another generic's name and was left without a name key",
+                        generic.getId(), generic.getGenericName());
+            }
+        }
+
+        for (MedicineGeneric generic : medicineGenericRepository.findAll()) {
+            if (generic.getNameKey() != null) {
+                idsByKey.put(generic.getNameKey(), generic.getId());
+            }
+        }
+        log.info("Loaded {} generic names", idsByKey.size());
+    }
+
+    /**
+     * Id of the generic with this exact (normalized) name, if one exists.
+     */
+    public Optional<Long> findId(String genericName) {
+        String key = MedicineGeneric.normalizeName(genericName);
+        Long id = idsByKey.get(key);
+        if (id != null) {
+            return Optional.of(id);
+        }
+        Optional<Long> stored = medicineGenericRepository.findByNameKey(key).map(MedicineGeneric::getId);
+        stored.ifPresent(storedId -> cache(key, storedId));
+        return stored;
+    }
+
+    /**
+     * Id of the generic with this name, creating it in the caller's transaction with
+     * the given category and description if it does not exist yet.
+     */
+    @Transactional
+    public Long getOrCreateId(String genericName, String category, String description) {
+        Optional<Long> existing = findId(genericName);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+
+        String key = MedicineGeneric.normalizeName(genericName);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        boolean inserted;
+        try {
+            inserted = jdbcTemplate.update(insertSql(), genericName.trim(), key, category, now, now) > 0;
+        } catch (DuplicateKeyException e) {
+            // Lost the race to a concurrent insert of the same name
+            inserted = false;
+        }
+
+        MedicineGeneric generic = medicineGenericRepository.findByNameKey(key)
+                .orElseThrow(() -> new RuntimeException("Generic could not be resolved: " + genericName));
+        if (inserted && description != null) {
+            // Written through the entity so the JSON column is bound as Hibernate maps it
+            generic.setDescription(description);
+        }
+        cache(key, generic.getId());
+        return generic.getId();
+    }
+
+    /**
+     * Managed generic for this name in the caller's transaction, created if needed.
+     */
+    @Transactional
+    public MedicineGeneric getOrCreate(String genericName, String category, String description) {
+        Long id = getOrCreateId(genericName, category, description);
+        Optional<MedicineGeneric> generic = medicineGenericRepository.findById(id);
+        if (generic.isPresent()) {
+            return generic.get();
+        }
+
+        // Cached id points at a generic deleted elsewhere
+        idsByKey.remove(MedicineGeneric.normalizeName(genericName));
+        return medicineGenericRepository.findById(getOrCreateId(genericName, category, description))
+                .orElseThrow(() -> new RuntimeException("Generic could not be resolved: " + genericName));
+    }
+
+    // An id read or created inside a transaction is only trusted once that transaction commits
+    private void cache(String key, Long id) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    idsByKey.put(key, id);
+                }
+            });
+        } else {
+            idsByKey.put(key, id);
+        }
+    }
+
+    private String insertSql() {
+        String sql = insertSql;
+        if (sql == null) {
+            sql = isPostgres() ? INSERT_GENERIC_SKIP_DUPLICATES_SQL : INSERT_GENERIC_SQL;
+            insertSql = sql;
+        }
+        return sql;
+    }
+
+    private boolean isPostgres() {
+        try (Connection connection = dataSource.getConnection()) {
+            return "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+        } catch (SQLException e) {
+            // Plain inserts are still safe; the unique constraint rejects duplicates
+            return false;
+        }
+    }
+}
@@ -3,11 +3,16 @@ package com.prescription.service;
 import com.prescription.dto.HospitalDto;
 import com.prescription.entity.Hospital;
 import com.prescription.repository.HospitalRepository;
+import com.prescription.search.TextSearchBackend;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -15,6 +20,7 @@ import java.util.stream.Collectors;
 public class HospitalService {
 
     private final HospitalRepository hospitalRepository;
+    private final TextSearchBackend textSearchBackend;
 
     public List<HospitalDto> getAllActiveHospitals() {
         return hospitalRepository.findAll().stream()
@@ -34,8 +40,14 @@ public class HospitalService {
     }
 
 
-    public List<HospitalDto> searchHospitals(String query) {
-        return hospitalRepository.findByNameContainingIgnoreCase(query).stream()
+    public List<HospitalDto> searchHospitals(String query, Pageable pageable) {
+        List<Long> ids = textSearchBackend.search(TextSearchBackend.Target.HOSPITAL, query, pageable);
+        Map<Long, Hospital> found = hospitalRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Hospital::getId, Function.identity()));
+        // Keep the backend's ranking
+        return ids.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
@@ -0,0 +1,261 @@
+package com.prescription.service;
+
+import com.prescription.dto.MedicineSearchDto;
+import com.prescription.repository.GenericSearchRow;
+import com.prescription.repository.MedicineGenericRepository;
+import com.prescription.repository.MedicineRepository;
+import com.prescription.repository.MedicineSearchRow;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded read-through cache of medicine and generic reference data.
+ *
+ * Medicines and generics are cached separately and combined on read, so editing
+ * a generic only drops that one entry. Misses for a whole batch of ids are loaded
+ * with one projection query, which also fills in their generics. Writes in
+ * {@link MedicineService} evict the affected entries both immediately and after
+ * commit, and every eviction stamps the id with a new value of a shared clock. A
+ * load only caches a row if its id has not been evicted since the load started,
+ * so a read that raced the write and saw the old row cannot put it back.
+ */
+@Component
+public class MedicineCatalogueCache {
+
+    private final MedicineRepository medicineRepository;
+    private final MedicineGenericRepository medicineGenericRepository;
+    private final int maxSize;
+
+    private final Map<Long, MedicineEntry> medicines = new ConcurrentHashMap<>();
+    private final Map<Long, GenericEntry> generics = new ConcurrentHashMap<>();
+
+    // Clock value of each id's last eviction; one entry per medicine or generic ever edited
+    private final AtomicLong clock = new AtomicLong();
+    private final Map<Long, Long> medicineEvictedAt = new ConcurrentHashMap<>();
+    private final Map<Long, Long> genericEvictedAt = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public MedicineCatalogueCache(MedicineRepository medicineRepository,
+                                  MedicineGenericRepository medicineGenericRepository,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.medicine.catalogue-cache.max-size:20000}") int maxSize) {
+        this.medicineRepository = medicineRepository;
+        this.medicineGenericRepository = medicineGenericRepository;
+        this.maxSize = maxSize;
+
+        FunctionCounter.builder("medicine.catalogue.cache.hits", hits, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("medicine.catalogue.cache.misses", misses, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("medicine.catalogue.cache.evictions", evictions, LongAdder::sum).register(meterRegistry);
+        Gauge.builder("medicine.catalogue.cache.size", medicines, Map::size)
+                .tag("entity", "medicine")
+                .register(meterRegistry);
+        Gauge.builder("medicine.catalogue.cache.size", generics, Map::size)
+                .tag("entity", "generic")
+                .register(meterRegistry);
+    }
+
+    public Optional<MedicineSearchDto> get(Long medicineId) {
+        return Optional.ofNullable(getAll(List.of(medicineId)).get(medicineId));
+    }
+
+    /**
+     * Looks up several medicines at once. The result keeps the order of the ids given
+     * and leaves out ids that do not exist.
+     */
+    public Map<Long, MedicineSearchDto> getAll(Collection<Long> medicineIds) {
+        Map<Long, MedicineEntry> found = new LinkedHashMap<>();
+        Set<Long> missing = new HashSet<>();
+        for (Long id : medicineIds) {
+            if (id == null) {
+                continue;
+            }
+            MedicineEntry entry = medicines.get(id);
+            if (entry != null) {
+                hits.increment();
+                found.put(id, entry);
+            } else if (missing.add(id)) {
+                misses.increment();
+                found.put(id, null);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            long loadStarted = clock.get();
+            // One projection query fills both maps; no entities are created
+            for (MedicineSearchRow row : medicineRepository.findSearchRowsByIdIn(missing)) {
+                MedicineEntry entry = MedicineEntry.of(row);
+                put(medicines, medicineEvictedAt, entry.id(), entry, loadStarted);
+                found.put(entry.id(), entry);
+                if (row.getGenericId() != null && !generics.containsKey(row.getGenericId())) {
+                    put(generics, genericEvictedAt, row.getGenericId(), GenericEntry.of(row), loadStarted);
+                }
+            }
+        }
+
+        Map<Long, GenericEntry> genericsById = getGenerics(found.values().stream()
+                .filter(Objects::nonNull)
+                .map(MedicineEntry::genericId)
+                .filter(Objects::nonNull)
+                .toList());
+
+        Map<Long, MedicineSearchDto> results = new LinkedHashMap<>();
+        for (MedicineEntry entry : found.values()) {
+            if (entry != null) {
+                results.put(entry.id(), entry.toDto(genericsById.get(entry.genericId())));
+            }
+        }
+        return results;
+    }
+
+    public Optional<MedicineSearchDto> getGeneric(Long genericId) {
+        GenericEntry entry = getGenerics(List.of(genericId)).get(genericId);
+        return Optional.ofNullable(entry).map(GenericEntry::toDto);
+    }
+
+    public void evictMedicine(Long medicineId) {
+        evict(medicines, medicineEvictedAt, medicineId);
+        afterCommit(() -> evict(medicines, medicineEvictedAt, medicineId));
+    }
+
+    public void evictGeneric(Long genericId) {
+        evict(generics, genericEvictedAt, genericId);
+        afterCommit(() -> evict(generics, genericEvictedAt, genericId));
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private Map<Long, GenericEntry> getGenerics(Collection<Long> genericIds) {
+        Map<Long, GenericEntry> found = new HashMap<>();
+        Set<Long> missing = new HashSet<>();
+        for (Long id : genericIds) {
+            GenericEntry entry = generics.get(id);
+            if (entry != null) {
+                hits.increment();
+                found.put(id, entry);
+            } else if (missing.add(id)) {
+                misses.increment();
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            long loadStarted = clock.get();
+            for (GenericSearchRow row : medicineGenericRepository.findSearchRowsByIdIn(missing)) {
+                GenericEntry entry = GenericEntry.of(row);
+                put(generics, genericEvictedAt, entry.id(), entry, loadStarted);
+                found.put(entry.id(), entry);
+            }
+        }
+        return found;
+    }
+
+    private <V> void evict(Map<Long, V> map, Map<Long, Long> evictedAt, Long key) {
+        // Stamp and remove under the id's lock so a concurrent put sees one or neither
+        evictedAt.compute(key, (id, previous) -> {
+            map.remove(id);
+            return clock.incrementAndGet();
+        });
+    }
+
+    /**
+     * Caches a value loaded at {@code loadStarted}, unless the id was evicted since.
+     */
+    private <V> void put(Map<Long, V> map, Map<Long, Long> evictedAt, Long key, V value, long loadStarted) {
+        evictedAt.compute(key, (id, stamp) -> {
+            if (stamp == null || stamp <= loadStarted) {
+                putBounded(map, id, value);
+            }
+            return stamp;
+        });
+    }
+
+    private <V> void putBounded(Map<Long, V> map, Long key, V value) {
+        if (map.size() >= maxSize && !map.containsKey(key)) {
+            // Drop arbitrary entries down to 90% of capacity
+            Iterator<Long> it = map.keySet().iterator();
+            int target = (int) (maxSize * 0.9);
+            while (map.size() > target && it.hasNext()) {
+                it.next();
+                it.remove();
+                evictions.increment();
+            }
+        }
+        map.put(key, value);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    private record MedicineEntry(Long id, String name, String strength, String form,
+                                 BigDecimal price, String manufacturer, Long genericId) {
+
+        static MedicineEntry of(MedicineSearchRow row) {
+            return new MedicineEntry(row.getId(), row.getName(), row.getStrength(),
+                    row.getForm() != null ? row.getForm().name() : null,
+                    row.getPrice(), row.getManufacturer(), row.getGenericId());
+        }
+
+        MedicineSearchDto toDto(GenericEntry generic) {
+            MedicineSearchDto dto = new MedicineSearchDto();
+            dto.setId(id);
+            dto.setName(name);
+            dto.setStrength(strength);
+            dto.setForm(form);
+            dto.setPrice(price);
+            dto.setManufacturer(manufacturer);
+            if (generic != null) {
+                dto.setGenericName(generic.genericName());
+                dto.setCategory(generic.category());
+                dto.setDescription(generic.description());
+            }
+            return dto;
+        }
+    }
+
+    private record GenericEntry(Long id, String genericName, String category, String description) {
+
+        static GenericEntry of(GenericSearchRow row) {
+            return new GenericEntry(row.getId(), row.getGenericName(), row.getCategory(), row.getDescription());
+        }
+
+        static GenericEntry of(MedicineSearchRow row) {
+            return new GenericEntry(row.getGenericId(), row.getGenericName(), row.getCategory(), row.getDescription());
+        }
+
+        MedicineSearchDto toDto() {
+            MedicineSearchDto dto = new MedicineSearchDto();
+            dto.setId(id);
+            dto.setGenericName(genericName);
+            dto.setCategory(category);
+            dto.setDescription(description);
+            return dto;
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package com.prescription.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.prescription.dto.MedicineImportReport;
+import com.prescription.entity.Medicine;
+import com.prescription.entity.MedicineGeneric;
+import com.prescription.repository.MedicineRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Streams a medicine catalogue (CSV with a header row, or JSON lines) into the database.
+ *
+ * The input is parsed one line at a time. Generics are resolved by exact
+ * normalized name through {@link GenericNameResolver}, which creates missing
+ * ones once, and rows already in the catalogue (same name, strength, form and generic) are
+ * skipped. Medicines are written with JDBC batch inserts, one transaction per
+ * chunk, so a bad chunk is rejected on its own without undoing earlier ones.
+ */
+@Slf4j
+@Service
+public class MedicineImportService {
+
+    public enum Format { CSV, JSONL }
+
+    private static final String INSERT_MEDICINE_SQL =
+            "INSERT INTO medicines (name, strength, form, generic_id, price, manufacturer, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int[] COLUMN_TYPES = {
+            Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.BIGINT,
+            Types.DECIMAL, Types.VARCHAR, Types.TIMESTAMP, Types.TIMESTAMP
+    };
+
+    @Autowired
+    private MedicineRepository medicineRepository;
+
+    @Autowired
+    private GenericNameResolver genericNameResolver;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MedicineSearchIndex searchIndex;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.medicine.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.medicine.import.max-reported-rejections:100}")
+    private int maxReportedRejections;
+
+    public MedicineImportReport importCatalogue(InputStream input, Format format) throws IOException {
+        long started = System.currentTimeMillis();
+        MedicineImportReport report = new MedicineImportReport();
+
+        Set<String> existingKeys = new HashSet<>();
+        for (Object[] key : medicineRepository.findCatalogueKeys()) {
+            existingKeys.add(medicineKey((String) key[0], (String) key[1], (Medicine.Form) key[2], (Long) key[3]));
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            long lineNumber = 0;
+            RowParser parser;
+            if (format == Format.CSV) {
+                String header = reader.readLine();
+                lineNumber++;
+                if (header == null) {
+                    throw new IllegalArgumentException("CSV input is empty");
+                }
+                parser = new CsvRowParser(header);
+            } else {
+                parser = this::parseJsonLine;
+            }
+
+            List<ImportRow> chunk = new ArrayList<>(chunkSize);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                report.setTotalRows(report.getTotalRows() + 1);
+                try {
+                    chunk.add(parser.parse(line, lineNumber));
+                } catch (IllegalArgumentException e) {
+                    reject(report, lineNumber, e.getMessage());
+                    continue;
+                }
+                if (chunk.size() >= chunkSize) {
+                    flush(chunk, existingKeys, report);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                flush(chunk, existingKeys, report);
+            }
+        }
+
+        if (report.getImportedRows() > 0) {
+            searchIndex.load();
+        }
+        report.setElapsedMillis(System.currentTimeMillis() - started);
+        log.info("Medicine import finished: {} rows, {} imported, {} duplicates, {} rejected, {} generics created in {} ms",
+                report.getTotalRows(), report.getImportedRows(), report.getDuplicateRows(),
+                report.getRejectedRows(), report.getGenericsCreated(), report.getElapsedMillis());
+        return report;
+    }
+
+    /**
+     * Writes one chunk, with any generics it creates, in its own transaction. Known
+     * keys and row counts are only updated once the chunk has committed.
+     */
+    private void flush(List<ImportRow> chunk, Set<String> existingKeys, MedicineImportReport report) {
+        Set<String> createdGenerics = new HashSet<>();
+        Set<String> chunkKeys = new HashSet<>();
+        List<MedicineImportReport.RejectedRow> chunkRejections = new ArrayList<>();
+        long[] duplicates = {0};
+
+        try {
+            int inserted = transactionTemplate.execute(status -> {
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                List<Object[]> rows = new ArrayList<>(chunk.size());
+
+                for (ImportRow row : chunk) {
+                    Long genericId = genericNameResolver.findId(row.genericName()).orElse(null);
+                    if (genericId == null) {
+                        if (row.category() == null) {
+                            chunkRejections.add(new MedicineImportReport.RejectedRow(row.line(),
+                                    "Category is required for new generic " + row.genericName()));
+                            continue;
+                        }
+                        // Created in the chunk's transaction, so a failed chunk leaves no generic behind
+                        genericId = genericNameResolver.getOrCreateId(row.genericName(), row.category(), row.description());
+                        createdGenerics.add(MedicineGeneric.normalizeName(row.genericName()));
+                    }
+
+                    String key = medicineKey(row.name(), row.strength(), row.form(), genericId);
+                    if (existingKeys.contains(key) || !chunkKeys.add(key)) {
+                        duplicates[0]++;
+                        continue;
+                    }
+
+                    rows.add(new Object[]{
+                            row.name(), row.strength(), row.form().name(), genericId,
+                            row.price(), row.manufacturer(), now, now
+                    });
+                }
+
+                if (!rows.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERT_MEDICINE_SQL, rows, chunkSize, (ps, row) -> {
+                        for (int i = 0; i < row.length; i++) {
+                            ps.setObject(i + 1, row[i], COLUMN_TYPES[i]);
+                        }
+                    });
+                }
+                return rows.size();
+            });
+
+            existingKeys.addAll(chunkKeys);
+            report.setImportedRows(report.getImportedRows() + inserted);
+            report.setDuplicateRows(report.getDuplicateRows() + duplicates[0]);
+            report.setGenericsCreated(report.getGenericsCreated() + createdGenerics.size());
+            for (MedicineImportReport.RejectedRow rejection : chunkRejections) {
+                reject(report, rejection.getLine(), rejection.getReason());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Medicine import chunk starting at line {} failed: {}", chunk.get(0).line(), e.getMessage());
+            for (ImportRow row : chunk) {
+                reject(report, row.line(), "Chunk failed: " + e.getMessage());
+            }
+        }
+
+        log.info("Medicine import progress: {} rows read, {} imported, {} rejected",
+                report.getTotalRows(), report.getImportedRows(), report.getRejectedRows());
+    }
+
+    private void reject(MedicineImportReport report, long line, String reason) {
+        report.setRejectedRows(report.getRejectedRows() + 1);
+        if (report.getRejected().size() < maxReportedRejections) {
+            report.getRejected().add(new MedicineImportReport.RejectedRow(line, reason));
+        }
+    }
+
+    // ============= PARSING =============
+
+    private interface RowParser {
+        ImportRow parse(String line, long lineNumber);
+    }
+
+    /**
+     * Maps columns by header name, so column order is free. Quoted fields may contain
+     * commas and doubled quotes but not line breaks.
+     */
+    private static class CsvRowParser implements RowParser {
+        private final Map<String, Integer> columns = new HashMap<>();
+
+        CsvRowParser(String header) {
+            List<String> names = splitCsv(header);
+            for (int i = 0; i < names.size(); i++) {
+                columns.put(names.get(i).trim().toLowerCase(Locale.ROOT).replace("_", ""), i);
+            }
+            for (String required : List.of("name", "genericname", "strength", "form", "price")) {
+                if (!columns.containsKey(required)) {
+                    throw new IllegalArgumentException("CSV header is missing column " + required);
+                }
+            }
+        }
+
+        @Override
+        public ImportRow parse(String line, long lineNumber) {
+            List<String> fields = splitCsv(line);
+            return toRow(lineNumber, field(fields, "name"), field(fields, "genericname"), field(fields, "strength"),
+                    field(fields, "form"), field(fields, "price"), field(fields, "manufacturer"),
+                    field(fields, "category"), field(fields, "description"));
+        }
+
+        private String field(List<String> fields, String column) {
+            Integer index = columns.get(column);
+            return index != null && index < fields.size() ? fields.get(index) : null;
+        }
+    }
+
+    private ImportRow parseJsonLine(String line, long lineNumber) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed JSON");
+        }
+        return toRow(lineNumber, text(node, "name"), text(node, "genericName"), text(node, "strength"),
+                text(node, "form"), text(node, "price"), text(node, "manufacturer"),
+                text(node, "category"), text(node, "description"));
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        // Structured descriptions are stored as their JSON text
+        return value.isValueNode() ? value.asText() : value.toString();
+    }
+
+    private static ImportRow toRow(long line, String name, String genericName, String strength, String form,
+                                   String price, String manufacturer, String category, String description) {
+        name = required(name, "Name");
+        genericName = required(genericName, "Generic name");
+        strength = required(strength, "Strength");
+
+        Medicine.Form parsedForm;
+        try {
+            parsedForm = Medicine.Form.valueOf(required(form, "Form").toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown form: " + form);
+        }
+
+        BigDecimal parsedPrice;
+        try {
+            parsedPrice = new BigDecimal(required(price, "Price"));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid price: " + price);
+        }
+        if (parsedPrice.signum() < 0) {
+            throw new IllegalArgumentException("Price must not be negative");
+        }
+
+        return new ImportRow(line, name, genericName, strength, parsedForm, parsedPrice,
+                blankToNull(manufacturer), blankToNull(category), blankToNull(description));
+    }
+
+    private static String required(String value, String label) {
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException(label + " is required");
+        }
+        return value.trim();
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String medicineKey(String name, String strength, Medicine.Form form, Long genericId) {
+        return normalize(name) + '\u0000' + normalize(strength) + '\u0000' + form + '\u0000' + genericId;
+    }
+
+    private record ImportRow(long line, String name, String genericName, String strength, Medicine.Form form,
+                             BigDecimal price, String manufacturer, String category, String description) {
+    }
+}
@@ -0,0 +1,314 @@
+package com.prescription.service;
+
+import com.prescription.dto.MedicineSearchDto;
+import com.prescription.entity.Medicine;
+import com.prescription.entity.MedicineGeneric;
+import com.prescription.repository.MedicineRepository;
+import com.prescription.repository.MedicineSearchRow;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
+
+/**
+ * In-memory search index over medicine brand and generic names.
+ *
+ * Names are split into words and indexed by trigram, padded the way pg_trgm does
+ * ("  a", " am", "amo", ...), so the same postings serve prefix, infix and
+ * misspelled queries. Candidates are ranked by how the query matches the name
+ * (exact, prefix, word start, substring) and then by trigram overlap, and only the
+ * best {@code maxResults} are kept; a blank query lists the whole catalogue. The
+ * index is loaded once at startup and then kept current by the write methods in
+ * {@link MedicineService}; searches never touch the database.
+ */
+@Slf4j
+@Component
+public class MedicineSearchIndex {
+
+    private final MedicineRepository medicineRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int maxResults;
+    private final double minSimilarity;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public MedicineSearchIndex(MedicineRepository medicineRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.medicine.search.max-results:50}") int maxResults,
+                               @Value("${app.medicine.search.min-similarity:0.5}") double minSimilarity) {
+        this.medicineRepository = medicineRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxResults = maxResults;
+        this.minSimilarity = minSimilarity;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<MedicineSearchRow> rows = readOnlyTransaction.execute(status -> medicineRepository.findAllSearchRows());
+        synchronized (this) {
+            entries.clear();
+            postings.clear();
+            for (MedicineSearchRow row : rows) {
+                addEntry(toEntry(row.toDto(), row.getGenericId()));
+            }
+            loaded = true;
+        }
+        log.info("Indexed {} medicines for search", entries.size());
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    // ============= SEARCH =============
+
+    /**
+     * Best matches for the term, highest ranked first. A blank term lists the
+     * whole catalogue alphabetically; the result limit applies to searches only.
+     */
+    public List<MedicineSearchDto> search(String term) {
+        String query = normalize(term);
+        if (query.isEmpty()) {
+            return entries.values().stream()
+                    .sorted(Comparator.comparing(Entry::name).thenComparing(Entry::id))
+                    .map(entry -> new MedicineSearchDto(entry.dto()))
+                    .toList();
+        }
+
+        Set<String> queryGrams = queryGrams(query);
+        Map<Long, Integer> hits = new HashMap<>();
+        for (String gram : queryGrams) {
+            Set<Long> ids = postings.get(gram);
+            if (ids != null) {
+                for (Long id : ids) {
+                    hits.merge(id, 1, Integer::sum);
+                }
+            }
+        }
+
+        List<Entry> candidates = new ArrayList<>(hits.size());
+        Map<Long, Integer> scores = new HashMap<>(hits.size());
+        for (Map.Entry<Long, Integer> hit : hits.entrySet()) {
+            Entry entry = entries.get(hit.getKey());
+            if (entry == null) {
+                continue;
+            }
+            double similarity = (double) hit.getValue() / queryGrams.size();
+            int matchRank = Math.max(matchRank(entry.name(), query) * 10, matchRank(entry.genericName(), query) * 9);
+            if (matchRank == 0 && similarity < minSimilarity) {
+                continue;
+            }
+            candidates.add(entry);
+            scores.put(entry.id(), matchRank * 100 + (int) (similarity * 100));
+        }
+        return topK(candidates, entry -> scores.get(entry.id()));
+    }
+
+    // ============= INCREMENTAL UPDATES =============
+
+    /**
+     * Indexes the medicine, or re-indexes it if present. Inside a transaction the
+     * change is applied only after commit.
+     */
+    public void upsert(Medicine medicine) {
+        Entry entry = toEntry(medicine);
+        afterCommit(() -> {
+            synchronized (this) {
+                removeEntry(entry.id());
+                addEntry(entry);
+            }
+        });
+    }
+
+    /**
+     * Refreshes the generic's name, category and description on every medicine indexed under it.
+     */
+    public void updateGeneric(MedicineGeneric generic) {
+        Long genericId = generic.getId();
+        String genericName = generic.getGenericName();
+        String category = generic.getCategory();
+        String description = generic.getDescription();
+        afterCommit(() -> {
+            synchronized (this) {
+                List<Entry> affected = entries.values().stream()
+                        .filter(entry -> genericId.equals(entry.genericId()))
+                        .toList();
+                for (Entry entry : affected) {
+                    MedicineSearchDto dto = new MedicineSearchDto(entry.dto());
+                    dto.setGenericName(genericName);
+                    dto.setCategory(category);
+                    dto.setDescription(description);
+                    removeEntry(entry.id());
+                    addEntry(new Entry(entry.id(), entry.name(), normalize(genericName), genericId, dto));
+                }
+            }
+        });
+    }
+
+    public void remove(Long medicineId) {
+        afterCommit(() -> {
+            synchronized (this) {
+                removeEntry(medicineId);
+            }
+        });
+    }
+
+    // ============= INTERNALS =============
+
+    private void addEntry(Entry entry) {
+        entries.put(entry.id(), entry);
+        for (String gram : entryGrams(entry)) {
+            postings.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(entry.id());
+        }
+    }
+
+    private void removeEntry(Long id) {
+        Entry previous = entries.remove(id);
+        if (previous == null) {
+            return;
+        }
+        for (String gram : entryGrams(previous)) {
+            Set<Long> ids = postings.get(gram);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private List<MedicineSearchDto> topK(Collection<Entry> candidates, ToIntFunction<Entry> score) {
+        Comparator<Entry> ranking = Comparator.<Entry>comparingInt(score)
+                .thenComparing(Comparator.comparing((Entry entry) -> entry.name()).reversed())
+                .thenComparing(Comparator.comparing((Entry entry) -> entry.id()).reversed());
+
+        // Min-heap holding the best maxResults seen so far
+        PriorityQueue<Entry> best = new PriorityQueue<>(maxResults + 1, ranking);
+        for (Entry entry : candidates) {
+            best.offer(entry);
+            if (best.size() > maxResults) {
+                best.poll();
+            }
+        }
+
+        List<MedicineSearchDto> results = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            results.add(new MedicineSearchDto(best.poll().dto()));
+        }
+        Collections.reverse(results);
+        return results;
+    }
+
+    /**
+     * 4 exact, 3 prefix, 2 start of a later word, 1 anywhere else, 0 no substring match.
+     */
+    private static int matchRank(String value, String query) {
+        if (value.isEmpty()) {
+            return 0;
+        }
+        if (value.equals(query)) {
+            return 4;
+        }
+        if (value.startsWith(query)) {
+            return 3;
+        }
+        int index = value.indexOf(query);
+        if (index < 0) {
+            return 0;
+        }
+        return Character.isLetterOrDigit(value.charAt(index - 1)) ? 1 : 2;
+    }
+
+    private static Set<String> entryGrams(Entry entry) {
+        Set<String> grams = new HashSet<>();
+        addWordGrams(grams, entry.name(), true);
+        addWordGrams(grams, entry.genericName(), true);
+        return grams;
+    }
+
+    /**
+     * The last word of a query may still be being typed, so its closing gram is left out.
+     */
+    private static Set<String> queryGrams(String query) {
+        Set<String> grams = new LinkedHashSet<>();
+        String[] words = query.split("[^\\p{L}\\p{N}]+");
+        for (int i = 0; i < words.length; i++) {
+            if (!words[i].isEmpty()) {
+                addGrams(grams, words[i], i < words.length - 1);
+            }
+        }
+        return grams;
+    }
+
+    private static void addWordGrams(Set<String> grams, String text, boolean closed) {
+        for (String word : text.split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                addGrams(grams, word, closed);
+            }
+        }
+    }
+
+    private static void addGrams(Set<String> grams, String word, boolean closed) {
+        String padded = "  " + word + (closed ? " " : "");
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Entry toEntry(Medicine medicine) {
+        MedicineSearchDto dto = new MedicineSearchDto();
+        dto.setId(medicine.getId());
+        dto.setName(medicine.getName());
+        dto.setStrength(medicine.getStrength());
+        dto.setForm(medicine.getForm() != null ? medicine.getForm().name() : null);
+        dto.setPrice(medicine.getPrice());
+        dto.setManufacturer(medicine.getManufacturer());
+
+        MedicineGeneric generic = medicine.getMedicineGeneric();
+        Long genericId = null;
+        if (generic != null) {
+            genericId = generic.getId();
+            dto.setGenericName(generic.getGenericName());
+            dto.setCategory(generic.getCategory());
+            dto.setDescription(generic.getDescription());
+        }
+        return toEntry(dto, genericId);
+    }
+
+    private static Entry toEntry(MedicineSearchDto dto, Long genericId) {
+        return new Entry(dto.getId(), normalize(dto.getName()), normalize(dto.getGenericName()), genericId, dto);
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    private record Entry(Long id, String name, String genericName, Long genericId, MedicineSearchDto dto) {
+    }
+}
@@ -4,17 +4,19 @@ import com.prescription.dto.MedicineRequestDto;
 import com.prescription.dto.MedicineSearchDto;
 import com.prescription.entity.Medicine;
 import com.prescription.entity.MedicineGeneric;
+import com.prescription.repository.GenericSearchRow;
 import com.prescription.repository.MedicineGenericRepository;
 import com.prescription.repository.MedicineRepository;
+import com.prescription.repository.MedicineSearchRow;
+import com.prescription.search.TextSearchBackend;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 
 @Service
 @Transactional(readOnly = true)
@@ -26,28 +28,29 @@ public class MedicineService {
     @Autowired
     private MedicineGenericRepository medicineGenericRepository;
 
-    public List<MedicineSearchDto> searchMedicines(String searchTerm) {
-        if (searchTerm == null || searchTerm.trim().isEmpty()) {
-            List<Medicine> medicines = medicineRepository.findAll();
-            List<MedicineSearchDto> results2 = new ArrayList<>();
-            for (Medicine medicine : medicines) {
-                MedicineSearchDto dto = convertToSearchDto(medicine);
-                results2.add(dto);
-            }
-            return results2;
-        }
+    @Autowired
+    private MedicineSearchIndex searchIndex;
 
-        String trimmedSearchTerm = searchTerm.trim();
-        List<MedicineSearchDto> results = new ArrayList<>();
+    @Autowired
+    private MedicineCatalogueCache catalogueCache;
 
-        List<Medicine> medicines = medicineRepository.findByNameOrGenericNameContainingIgnoreCase(trimmedSearchTerm);
+    @Autowired
+    private GenericNameResolver genericNameResolver;
 
-        for (Medicine medicine : medicines) {
-            MedicineSearchDto dto = convertToSearchDto(medicine);
-            results.add(dto);
+    @Autowired
+    private TextSearchBackend textSearchBackend;
+
+    /**
+     * Unpaged searches are served from the in-memory index once it has loaded; pages
+     * and searches during startup go to the database search backend.
+     */
+    public List<MedicineSearchDto> searchMedicines(String searchTerm, Pageable pageable) {
+        if (pageable.isUnpaged() && searchIndex.isLoaded()) {
+            return searchIndex.search(searchTerm);
         }
 
-        return results;
+        List<Long> ids = textSearchBackend.search(TextSearchBackend.Target.MEDICINE, searchTerm, pageable);
+        return new ArrayList<>(catalogueCache.getAll(ids).values());
     }
 
     public Optional<Medicine> getMedicineById(Long id) {
@@ -59,34 +62,51 @@ public class MedicineService {
     }
 
     public MedicineSearchDto getMedicineDetails(Long id) {
-        Optional<Medicine> medicineOpt = medicineRepository.findById(id);
-        if (medicineOpt.isEmpty()) {
-            throw new RuntimeException("Medicine not found with id: " + id);
-        }
-
-        return convertToSearchDto(medicineOpt.get());
+        return catalogueCache.get(id)
+                .orElseThrow(() -> new RuntimeException("Medicine not found with id: " + id));
     }
 
-    public List<MedicineSearchDto> getAllgenerics(String searchTerm) {
-        System.out.println(2);
-        System.out.println(searchTerm);
-        if (searchTerm == null || searchTerm.trim().isEmpty()) {
-            List<MedicineGeneric> medicines = medicineGenericRepository.findAll();
-            List<MedicineSearchDto> results2 = new ArrayList<>();
-            for (MedicineGeneric medicine : medicines) {
-                MedicineSearchDto dto = convertToGenericsSearchDto(medicine);
-                results2.add(dto);
+    /**
+     * Generics matching the term, each with its brands. Loads one page of generics and
+     * then all of their medicines in a single IN query, whatever the page size. Both
+     * queries select only the result columns, so no entities are created.
+     */
+    public List<MedicineSearchDto> getAllgenerics(String searchTerm, Pageable pageable) {
+        String term = (searchTerm == null || searchTerm.trim().isEmpty()) ? null : searchTerm.trim();
+        List<GenericSearchRow> generics;
+        if (term == null) {
+            generics = medicineGenericRepository.findRowPageByGenericNameContainingIgnoreCase(null, pageable);
+        } else {
+            // Ranked ids from the search backend, loaded back in rank order
+            List<Long> ids = textSearchBackend.search(TextSearchBackend.Target.GENERIC, term, pageable);
+            if (ids.isEmpty()) {
+                return new ArrayList<>();
             }
-            return results2;
+            Map<Long, GenericSearchRow> found = new HashMap<>();
+            for (GenericSearchRow generic : medicineGenericRepository.findSearchRowsByIdIn(ids)) {
+                found.put(generic.getId(), generic);
+            }
+            generics = ids.stream().map(found::get).filter(Objects::nonNull).toList();
+        }
+        if (generics.isEmpty()) {
+            return new ArrayList<>();
         }
 
-        List<MedicineGeneric> medicineGenerics = medicineGenericRepository.findByGenericNameContainingIgnoreCase(searchTerm);
-        System.out.println(medicineGenerics);
-        System.out.println(3);
-        List<MedicineSearchDto> results = new ArrayList<>();
-        System.out.println(4);
-        for (MedicineGeneric medicineGeneric : medicineGenerics) {
-            MedicineSearchDto dto = convertToGenericsSearchDto(medicineGeneric);
+        Set<Long> genericIds = new LinkedHashSet<>();
+        for (GenericSearchRow generic : generics) {
+            genericIds.add(generic.getId());
+        }
+
+        Map<Long, List<MedicineSearchDto>> medicinesByGeneric = new HashMap<>();
+        for (MedicineSearchRow medicine : medicineRepository.findSearchRowsByGenericIdIn(genericIds)) {
+            medicinesByGeneric.computeIfAbsent(medicine.getGenericId(), id -> new ArrayList<>())
+                    .add(medicine.toDto());
+        }
+
+        List<MedicineSearchDto> results = new ArrayList<>(generics.size());
+        for (GenericSearchRow generic : generics) {
+            MedicineSearchDto dto = generic.toDto();
+            dto.setMedicines(medicinesByGeneric.getOrDefault(generic.getId(), new ArrayList<>()));
             results.add(dto);
         }
         return results;
@@ -94,16 +114,9 @@ public class MedicineService {
 
     @Transactional
     public void saveMedicine(MedicineRequestDto medicineRequestDto) {
-        MedicineGeneric generic = medicineGenericRepository.findByGenericNameContainingIgnoreCase(medicineRequestDto.getGenericName())
-                .stream().findFirst().orElseGet(() -> {
-                    MedicineGeneric newGeneric = new MedicineGeneric();
-                    newGeneric.setGenericName(medicineRequestDto.getGenericName());
-                    newGeneric.setCategory(medicineRequestDto.getCategory());
-                    newGeneric.setDescription(medicineRequestDto.getDescription());
-                    newGeneric.setCreatedAt(LocalDateTime.now());
-                    newGeneric.setUpdatedAt(LocalDateTime.now());
-                    return medicineGenericRepository.save(newGeneric);
-                });
+        requireGenericName(medicineRequestDto);
+        MedicineGeneric generic = genericNameResolver.getOrCreate(medicineRequestDto.getGenericName(),
+                medicineRequestDto.getCategory(), medicineRequestDto.getDescription());
 
         Medicine medicine = new Medicine();
         medicine.setName(medicineRequestDto.getName());
@@ -114,27 +127,27 @@ public class MedicineService {
         medicine.setMedicineGeneric(generic);
         medicine.setUpdatedAt(LocalDateTime.now());
         medicine.setCreatedAt(LocalDateTime.now());
-        medicineRepository.save(medicine);
+        medicine = medicineRepository.save(medicine);
+        searchIndex.upsert(medicine);
     }
 
     @Transactional
     public void updateMedicine(Long id, MedicineRequestDto medicineRequestDto) {
+        requireGenericName(medicineRequestDto);
         Medicine medicine = medicineRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Medicine not found with id: " + id));
 
         MedicineGeneric generic = medicine.getMedicineGeneric();
-        if (generic == null || !generic.getGenericName().equals(medicineRequestDto.getGenericName())) {
-            generic = medicineGenericRepository.findByGenericNameContainingIgnoreCase(medicineRequestDto.getGenericName())
-                    .stream().findFirst().orElseGet(() -> {
-                        MedicineGeneric newGeneric = new MedicineGeneric();
-                        newGeneric.setGenericName(medicineRequestDto.getGenericName());
-                        newGeneric.setCategory(medicineRequestDto.getCategory());
-                        newGeneric.setDescription(medicineRequestDto.getDescription());
-                        return medicineGenericRepository.save(newGeneric);
-                    });
+        if (generic == null || !MedicineGeneric.normalizeName(generic.getGenericName())
+                .equals(MedicineGeneric.normalizeName(medicineRequestDto.getGenericName()))) {
+            generic = genericNameResolver.getOrCreate(medicineRequestDto.getGenericName(),
+                    medicineRequestDto.getCategory(), medicineRequestDto.getDescription());
         } else {
             generic.setCategory(medicineRequestDto.getCategory());
             generic.setDescription(medicineRequestDto.getDescription());
+            generic.setUpdatedAt(LocalDateTime.now());
+            searchIndex.updateGeneric(generic);
+            catalogueCache.evictGeneric(generic.getId());
         }
 
         medicine.setName(medicineRequestDto.getName());
@@ -143,7 +156,16 @@ public class MedicineService {
         medicine.setPrice(medicineRequestDto.getPrice());
         medicine.setManufacturer(medicineRequestDto.getManufacturer());
         medicine.setMedicineGeneric(generic);
-        medicineRepository.save(medicine);
+        medicine = medicineRepository.save(medicine);
+        searchIndex.upsert(medicine);
+        catalogueCache.evictMedicine(id);
+    }
+
+    // Generic names are normalized and looked up by key, which needs a non-blank name
+    private static void requireGenericName(MedicineRequestDto medicineRequestDto) {
+        if (medicineRequestDto.getGenericName() == null || medicineRequestDto.getGenericName().isBlank()) {
+            throw new IllegalArgumentException("Generic name is required");
+        }
     }
 
     @Transactional
@@ -151,27 +173,12 @@ public class MedicineService {
         Medicine medicine = medicineRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Medicine not found with id: " + id));
         medicineRepository.delete(medicine);
-    }
-
-    public MedicineSearchDto convertToGenericsSearchDto(MedicineGeneric genre) {
-        MedicineSearchDto dto = new MedicineSearchDto();
-        dto.setId(genre.getId());
-        dto.setGenericName(genre.getGenericName());
-        dto.setCategory(genre.getCategory());
-        dto.setDescription(genre.getDescription());
-
-        List<Medicine> medicines = medicineRepository.findByMedicineGenericId(genre.getId());
-        List<MedicineSearchDto> medicineDtos = new ArrayList<>();
-        for (Medicine medicine : medicines) {
-            MedicineSearchDto medicineDto = convertToSearchDto(medicine);
-            medicineDtos.add(medicineDto);
-        }
-        dto.setMedicines(medicineDtos);
-
-        return dto;
+        searchIndex.remove(id);
+        catalogueCache.evictMedicine(id);
     }
 
     public MedicineSearchDto convertToSearchDto(Medicine medicine) {
+        MedicineGeneric generic = medicine.getMedicineGeneric();
         MedicineSearchDto dto = new MedicineSearchDto();
         dto.setId(medicine.getId());
         dto.setName(medicine.getName());
@@ -180,7 +187,6 @@ public class MedicineService {
         dto.setPrice(medicine.getPrice());
         dto.setManufacturer(medicine.getManufacturer());
 
-        MedicineGeneric generic = medicine.getMedicineGeneric();
         if (generic != null) {
             dto.setGenericName(generic.getGenericName());
             dto.setCategory(generic.getCategory());
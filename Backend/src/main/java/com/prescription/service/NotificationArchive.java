@@ -0,0 +1,161 @@
+package com.prescription.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Archive for expired notifications on PostgreSQL.
+ *
+ * notifications_archive is range-partitioned by month of created_at. Each month's
+ * partition is created along with the first rows archived into it, and old months
+ * are dropped whole instead of deleted row by row. With
+ * app.notifications.retention.archive=auto (the default) the archive is used on
+ * PostgreSQL only; elsewhere, or with "off", expired notifications are simply deleted.
+ */
+@Slf4j
+@Component
+public class NotificationArchive {
+
+    private static final String TABLE = "notifications_archive";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String CREATE_TABLE_SQL =
+            "CREATE TABLE IF NOT EXISTS " + TABLE + " (" +
+            "id uuid NOT NULL, user_id bigint NOT NULL, title varchar(255) NOT NULL, message text, " +
+            "type varchar(255) NOT NULL, isread boolean NOT NULL, created_at timestamp(6) NOT NULL, " +
+            "appointment_id bigint, prescription_id bigint, reminder_time time(6), frequency varchar(255), " +
+            "archived_at timestamp(6) NOT NULL) PARTITION BY RANGE (created_at)";
+
+    private static final String CREATE_INDEX_SQL =
+            "CREATE INDEX IF NOT EXISTS idx_notifications_archive_user_created ON " + TABLE + " (user_id, created_at)";
+
+    private static final String ARCHIVE_SQL =
+            "INSERT INTO " + TABLE + " (id, user_id, title, message, type, isread, created_at, " +
+            "appointment_id, prescription_id, reminder_time, frequency, archived_at) " +
+            "SELECT id, user_id, title, message, type, \"isread\", created_at, " +
+            "appointment_id, prescription_id, reminder_time, frequency, now() " +
+            "FROM notifications WHERE id IN (:ids)";
+
+    private static final String PARTITIONS_SQL =
+            "SELECT c.relname FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent " +
+            "WHERE p.relname = '" + TABLE + "'";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final String mode;
+    private final int retentionMonths;
+
+    private volatile boolean enabled;
+
+    public NotificationArchive(DataSource dataSource,
+                               JdbcTemplate jdbcTemplate,
+                               NamedParameterJdbcTemplate namedJdbcTemplate,
+                               @Value("${app.notifications.retention.archive:auto}") String mode,
+                               @Value("${app.notifications.retention.archive-months:12}") int retentionMonths) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.mode = mode;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        boolean wanted = switch (mode.trim().toLowerCase()) {
+            case "auto" -> isPostgres();
+            case "off" -> false;
+            default -> throw new IllegalStateException("Unknown app.notifications.retention.archive: " + mode);
+        };
+        if (!wanted) {
+            log.info("Notification archive disabled; expired notifications are deleted");
+            return;
+        }
+        try {
+            jdbcTemplate.execute(CREATE_TABLE_SQL);
+            jdbcTemplate.execute(CREATE_INDEX_SQL);
+            enabled = true;
+            log.info("Notification archive ready");
+        } catch (DataAccessException e) {
+            log.warn("Notification archive setup failed, expired notifications will be deleted: {}", e.getMessage());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Copies the notifications into the archive in the caller's transaction. The
+     * months must cover every row's created_at.
+     */
+    public int archive(Collection<UUID> ids, Collection<YearMonth> months) {
+        // Not cached: a rolled-back chunk also rolls back the partitions it created
+        for (YearMonth month : months) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(month) +
+                    " PARTITION OF " + TABLE + " FOR VALUES FROM ('" + month.atDay(1) +
+                    "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+        }
+        return namedJdbcTemplate.update(ARCHIVE_SQL, new MapSqlParameterSource("ids", ids));
+    }
+
+    /**
+     * Drops monthly partitions older than the archive retention. Returns the number dropped.
+     */
+    public int dropExpiredPartitions() {
+        if (!enabled || retentionMonths <= 0) {
+            return 0;
+        }
+        YearMonth oldestKept = YearMonth.now().minusMonths(retentionMonths);
+        int dropped = 0;
+        for (String partition : jdbcTemplate.queryForList(PARTITIONS_SQL, String.class)) {
+            YearMonth month = monthOf(partition);
+            if (month != null && month.isBefore(oldestKept)) {
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition);
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    private static String partitionName(YearMonth month) {
+        return TABLE + "_p" + month.format(PARTITION_SUFFIX);
+    }
+
+    private static YearMonth monthOf(String partitionName) {
+        String prefix = TABLE + "_p";
+        if (!partitionName.startsWith(prefix)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partitionName.substring(prefix.length()), PARTITION_SUFFIX);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private boolean isPostgres() {
+        try (Connection connection = dataSource.getConnection()) {
+            return "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+        } catch (SQLException e) {
+            log.warn("Could not detect database type, notification archive disabled: {}", e.getMessage());
+            return false;
+        }
+    }
+}
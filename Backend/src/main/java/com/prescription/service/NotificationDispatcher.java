@@ -0,0 +1,308 @@
+package com.prescription.service;
+
+import com.prescription.entity.Notification;
+import com.prescription.entity.NotificationOutbox;
+import com.prescription.repository.NotificationOutboxRepository;
+import com.prescription.repository.NotificationRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Delivers notifications through a transactional outbox.
+ *
+ * Callers only insert a {@link NotificationOutbox} row in their own transaction.
+ * After that transaction commits, a single background thread moves pending rows
+ * into the notifications table in batches and pushes each one to its user over
+ * STOMP once the batch has committed. A periodic sweep picks up rows left behind
+ * by a restart or a failed batch, so delivery is at least once per row. A row that
+ * keeps failing waits out an exponential backoff between attempts and is
+ * dead-lettered after app.notifications.outbox.max-attempts, or at once when the
+ * failure is one that retrying cannot fix.
+ */
+@Slf4j
+@Component
+public class NotificationDispatcher {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final NotificationRepository notificationRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final NotificationInboxService inboxService;
+    private final TransactionTemplate newTransaction;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final long retryBackoffMaxMillis;
+
+    // One worker; a wake-up while a drain is already queued is dropped, since that drain will see the rows
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1), runnable -> {
+                Thread thread = new Thread(runnable, "notification-dispatcher");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.DiscardPolicy());
+
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+    private final Timer batchTimer;
+
+    public NotificationDispatcher(NotificationOutboxRepository outboxRepository,
+                                  NotificationRepository notificationRepository,
+                                  SimpMessagingTemplate messagingTemplate,
+                                  NotificationInboxService inboxService,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.notifications.outbox.batch-size:200}") int batchSize,
+                                  @Value("${app.notifications.outbox.max-attempts:8}") int maxAttempts,
+                                  @Value("${app.notifications.outbox.retry-backoff-ms:30000}") long retryBackoffMillis,
+                                  @Value("${app.notifications.outbox.retry-backoff-max-ms:3600000}") long retryBackoffMaxMillis) {
+        this.outboxRepository = outboxRepository;
+        this.notificationRepository = notificationRepository;
+        this.messagingTemplate = messagingTemplate;
+        this.inboxService = inboxService;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.retryBackoffMaxMillis = retryBackoffMaxMillis;
+
+        FunctionCounter.builder("notification.outbox.delivered", delivered, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("notification.outbox.retried", retried, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("notification.outbox.deadlettered", deadLettered, LongAdder::sum).register(meterRegistry);
+        this.batchTimer = Timer.builder("notification.outbox.batch").register(meterRegistry);
+    }
+
+    /**
+     * Queues a notification in the caller's transaction; it is delivered after commit.
+     */
+    public void enqueue(Long userId, String title, String message, Notification.NotificationType type,
+                        Long appointmentId, Long prescriptionId, LocalTime reminderTime, String frequency) {
+        outboxRepository.save(NotificationOutbox.builder()
+                .userId(userId)
+                .title(title)
+                .message(message)
+                .type(type)
+                .appointmentId(appointmentId)
+                .prescriptionId(prescriptionId)
+                .reminderTime(reminderTime)
+                .frequency(frequency)
+                .createdAt(LocalDateTime.now())
+                .build());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wake();
+                }
+            });
+        } else {
+            wake();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        wake();
+    }
+
+    @Scheduled(fixedDelayString = "${app.notifications.outbox.sweep-interval-ms:30000}")
+    public void sweep() {
+        wake();
+    }
+
+    public void wake() {
+        executor.execute(this::drain);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void drain() {
+        try {
+            List<Notification> batch;
+            do {
+                Timer.Sample sample = Timer.start();
+                batch = moveBatch();
+                sample.stop(batchTimer);
+                push(batch);
+            } while (batch.size() >= batchSize);
+        } catch (RuntimeException e) {
+            // The failed batch rolled back, so its rows are still in the outbox
+            log.warn("Notification outbox batch failed, retrying rows one by one: {}", e.getMessage());
+            try {
+                drainOneByOne();
+            } catch (RuntimeException retryFailure) {
+                log.warn("Notification outbox retry failed, leaving rows for the next sweep: {}",
+                        retryFailure.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Moves one batch of outbox rows into notifications in a single transaction and
+     * returns the saved notifications once it has committed.
+     */
+    private List<Notification> moveBatch() {
+        return newTransaction.execute(status -> {
+            List<NotificationOutbox> pending = outboxRepository.findDueForUpdate(LocalDateTime.now(), PageRequest.of(0, batchSize));
+            if (pending.isEmpty()) {
+                return List.of();
+            }
+            List<Notification> saved = notificationRepository.saveAll(pending.stream()
+                    .map(NotificationDispatcher::toNotification)
+                    .toList());
+            outboxRepository.deleteAllInBatch(pending);
+            saved.stream()
+                    .collect(Collectors.groupingBy(Notification::getUserId, Collectors.counting()))
+                    .forEach(inboxService::onChanged);
+            return saved;
+        });
+    }
+
+    /**
+     * Fallback after a failed batch: each row is moved on its own, so a row that
+     * fails is set aside for a later attempt instead of blocking the rows behind it.
+     */
+    private void drainOneByOne() {
+        List<Long> ids = newTransaction.execute(status ->
+                outboxRepository.findDueForUpdate(LocalDateTime.now(), PageRequest.of(0, batchSize)).stream()
+                        .map(NotificationOutbox::getId)
+                        .toList());
+        for (Long id : ids) {
+            try {
+                Notification notification = newTransaction.execute(status ->
+                        outboxRepository.findById(id).map(row -> {
+                            Notification saved = notificationRepository.save(toNotification(row));
+                            outboxRepository.delete(row);
+                            inboxService.onChanged(saved.getUserId(), 1);
+                            return saved;
+                        }).orElse(null));
+                if (notification != null) {
+                    push(List.of(notification));
+                }
+            } catch (RuntimeException e) {
+                recordFailure(id, e);
+            }
+        }
+    }
+
+    /**
+     * Schedules the row's next attempt, or dead-letters it once attempts run out or
+     * the error is permanent. If this cannot be written either, the row is simply
+     * left as it was for the next sweep.
+     */
+    private void recordFailure(Long id, RuntimeException error) {
+        boolean permanent = isPermanent(error);
+        newTransaction.executeWithoutResult(status -> outboxRepository.findById(id).ifPresent(row -> {
+            int attempts = (row.getAttempts() != null ? row.getAttempts() : 0) + 1;
+            row.setAttempts(attempts);
+            row.setLastError(abbreviate(String.valueOf(error.getMessage())));
+            if (permanent || attempts >= maxAttempts) {
+                row.setDeadLetteredAt(LocalDateTime.now());
+                deadLettered.increment();
+                log.error("Dead-lettering notification outbox row {} after {} attempts: {}",
+                        id, attempts, error.getMessage());
+            } else {
+                long delay = Math.min(retryBackoffMaxMillis, retryBackoffMillis << Math.min(attempts - 1, 20));
+                row.setNextAttemptAt(LocalDateTime.now().plus(delay, ChronoUnit.MILLIS));
+                retried.increment();
+                log.warn("Notification outbox row {} failed on attempt {}, retrying in {} ms: {}",
+                        id, attempts, delay, error.getMessage());
+            }
+        }));
+    }
+
+    // Constraint and validation failures recur on every attempt
+    private static boolean isPermanent(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataIntegrityViolationException || cause instanceof ConstraintViolationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String abbreviate(String message) {
+        return message.length() <= 1000 ? message : message.substring(0, 1000);
+    }
+
+    private void push(List<Notification> notifications) {
+        for (Notification notification : notifications) {
+            try {
+                messagingTemplate.convertAndSendToUser(
+                        notification.getUserId().toString(),
+                        "/queue/notifications",
+                        toPayload(notification)
+                );
+            } catch (RuntimeException e) {
+                // Stored already; the user sees it on the next fetch
+                log.warn("Real-time push of notification {} failed: {}", notification.getId(), e.getMessage());
+            }
+        }
+        delivered.add(notifications.size());
+    }
+
+    private static Notification toNotification(NotificationOutbox row) {
+        return Notification.builder()
+                .userId(row.getUserId())
+                .title(row.getTitle())
+                .message(row.getMessage())
+                .type(row.getType())
+                .appointmentId(row.getAppointmentId())
+                .prescriptionId(row.getPrescriptionId())
+                .reminderTime(row.getReminderTime())
+                .frequency(row.getFrequency())
+                .createdAt(row.getCreatedAt())
+                .isRead(false)
+                .build();
+    }
+
+    private static Map<String, Object> toPayload(Notification notification) {
+        Map<String, Object> notificationData = new HashMap<>();
+        notificationData.put("id", notification.getId());
+        notificationData.put("title", notification.getTitle());
+        notificationData.put("message", notification.getMessage());
+        notificationData.put("type", notification.getType());
+        notificationData.put("timestamp", notification.getCreatedAt().format(TIMESTAMP_FORMAT));
+        notificationData.put("appointmentId", notification.getAppointmentId());
+        notificationData.put("prescriptionId", notification.getPrescriptionId());
+        notificationData.put("reminderTime", notification.getReminderTime() != null ? notification.getReminderTime().toString() : null);
+        notificationData.put("frequency", notification.getFrequency());
+        notificationData.put("isRead", notification.isRead());
+        return notificationData;
+    }
+}
@@ -0,0 +1,204 @@
+package com.prescription.service;
+
+import com.prescription.entity.Notification;
+import com.prescription.entity.NotificationInboxCounter;
+import com.prescription.repository.NotificationInboxCounterRepository;
+import com.prescription.repository.NotificationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user unread counters and a cache of each user's most recent notifications.
+ *
+ * Every change to a user's notifications reports its unread delta here in the same
+ * transaction, so the count is read from one row instead of counted. A user without
+ * a counter row is counted once on first read, and a nightly reconciliation recounts
+ * every row to correct any drift. The first inbox page is cached for a short time
+ * and evicted on any change to that user's notifications.
+ */
+@Slf4j
+@Service
+public class NotificationInboxService {
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationInboxCounterRepository counterRepository;
+    private final TransactionTemplate newTransaction;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final long cacheTtlMillis;
+    private final int cacheMaxUsers;
+
+    private final Map<Long, CachedPage> recentByUser = new ConcurrentHashMap<>();
+
+    public NotificationInboxService(NotificationRepository notificationRepository,
+                                    NotificationInboxCounterRepository counterRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${app.notifications.page.default-size:50}") int defaultPageSize,
+                                    @Value("${app.notifications.page.max-size:200}") int maxPageSize,
+                                    @Value("${app.notifications.inbox-cache.ttl-seconds:30}") long cacheTtlSeconds,
+                                    @Value("${app.notifications.inbox-cache.max-users:10000}") int cacheMaxUsers) {
+        this.notificationRepository = notificationRepository;
+        this.counterRepository = counterRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.cacheTtlMillis = cacheTtlSeconds * 1000;
+        this.cacheMaxUsers = cacheMaxUsers;
+    }
+
+    // ============= READS =============
+
+    public long getUnreadCount(Long userId) {
+        Optional<NotificationInboxCounter> counter = counterRepository.findById(userId);
+        if (counter.isPresent()) {
+            return counter.get().getUnreadCount();
+        }
+        try {
+            return newTransaction.execute(status -> rebuild(userId)).getUnreadCount();
+        } catch (DataIntegrityViolationException e) {
+            // Another request created the row first
+            return counterRepository.findById(userId)
+                    .map(NotificationInboxCounter::getUnreadCount)
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    /**
+     * Newest-first page of the user's notifications. The first page at the default
+     * size is served from the cache while it is fresh.
+     */
+    public List<Notification> getInbox(Long userId, Integer page, Integer size) {
+        int pageNumber = page != null ? page : 0;
+        int pageSize = pageSize(size);
+        if (pageNumber < 0) {
+            throw new IllegalArgumentException("page must not be negative");
+        }
+
+        boolean cacheable = pageNumber == 0 && pageSize == defaultPageSize;
+        if (cacheable) {
+            CachedPage cached = recentByUser.get(userId);
+            if (cached != null && System.currentTimeMillis() - cached.loadedAt() < cacheTtlMillis) {
+                return cached.items();
+            }
+        }
+
+        List<Notification> items = List.copyOf(notificationRepository.findByUserIdOrderByCreatedAtDescIdDesc(
+                userId, PageRequest.of(pageNumber, pageSize)));
+        if (cacheable) {
+            put(userId, new CachedPage(items, System.currentTimeMillis()));
+        }
+        return items;
+    }
+
+    public List<Notification> getUnread(Long userId, Integer page, Integer size) {
+        int pageNumber = page != null ? page : 0;
+        if (pageNumber < 0) {
+            throw new IllegalArgumentException("page must not be negative");
+        }
+        return notificationRepository.findByUserIdAndIsReadFalseOrderByCreatedAtDescIdDesc(
+                userId, PageRequest.of(pageNumber, pageSize(size)));
+    }
+
+    // ============= CHANGES =============
+
+    /**
+     * Records a change to the user's notifications made in the current transaction.
+     */
+    public void onChanged(Long userId, long unreadDelta) {
+        if (unreadDelta != 0) {
+            counterRepository.applyDelta(userId, unreadDelta, LocalDateTime.now());
+        }
+        evict(userId);
+    }
+
+    public void evict(Long userId) {
+        recentByUser.remove(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // A read racing the change could cache the old page until commit
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recentByUser.remove(userId);
+                }
+            });
+        }
+    }
+
+    // ============= RECONCILIATION =============
+
+    @Scheduled(cron = "${app.notifications.inbox.reconcile.cron:0 30 3 * * *}")
+    public void reconcileAll() {
+        List<Long> userIds = counterRepository.findAllUserIds();
+        int corrected = 0;
+        for (Long userId : userIds) {
+            try {
+                long before = counterRepository.findById(userId).map(NotificationInboxCounter::getUnreadCount).orElse(-1L);
+                NotificationInboxCounter after = newTransaction.execute(status -> rebuild(userId));
+                if (after != null && after.getUnreadCount() != before) {
+                    corrected++;
+                }
+            } catch (Exception e) {
+                log.error("Unread counter reconciliation failed for user {}", userId, e);
+            }
+        }
+        log.info("Reconciled unread counters for {} users, {} had drifted", userIds.size(), corrected);
+    }
+
+    /**
+     * Recounts the user's unread notifications. Must run inside a transaction.
+     */
+    private NotificationInboxCounter rebuild(Long userId) {
+        NotificationInboxCounter counter = counterRepository.findById(userId).orElseGet(() -> {
+            NotificationInboxCounter created = new NotificationInboxCounter();
+            created.setUserId(userId);
+            return created;
+        });
+        counter.setUnreadCount(notificationRepository.countByUserIdAndIsReadFalse(userId));
+        return counterRepository.save(counter);
+    }
+
+    // ============= HELPERS =============
+
+    private int pageSize(Integer size) {
+        if (size == null) {
+            return defaultPageSize;
+        }
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        return Math.min(size, maxPageSize);
+    }
+
+    private void put(Long userId, CachedPage page) {
+        if (recentByUser.size() >= cacheMaxUsers && !recentByUser.containsKey(userId)) {
+            // Drop arbitrary entries down to 90% of capacity
+            Iterator<Long> it = recentByUser.keySet().iterator();
+            int target = (int) (cacheMaxUsers * 0.9);
+            while (recentByUser.size() > target && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        recentByUser.put(userId, page);
+    }
+
+    private record CachedPage(List<Notification> items, long loadedAt) {
+    }
+}
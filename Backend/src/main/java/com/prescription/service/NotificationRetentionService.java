@@ -0,0 +1,171 @@
+package com.prescription.service;
+
+import com.prescription.entity.Notification;
+import com.prescription.repository.NotificationRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Expires notifications by type.
+ *
+ * Each type has a time to live, measured from created_at (which recurring medicine
+ * reminders refresh every time they fire, so active schedules never expire). A
+ * scheduled purge removes expired rows oldest first in bounded chunks, one
+ * transaction per chunk, copying them to {@link NotificationArchive} first when it
+ * is enabled and adjusting the owners' unread counters in the same transaction.
+ */
+@Slf4j
+@Service
+public class NotificationRetentionService {
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationInboxService inboxService;
+    private final NotificationArchive archive;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Notification.NotificationType, Long> ttlDays;
+    private final int chunkSize;
+    private final long chunkPauseMillis;
+
+    private final LongAdder purged = new LongAdder();
+    private final LongAdder archived = new LongAdder();
+
+    public NotificationRetentionService(NotificationRepository notificationRepository,
+                                        NotificationInboxService inboxService,
+                                        NotificationArchive archive,
+                                        PlatformTransactionManager transactionManager,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${app.notifications.retention.default-ttl-days:180}") long defaultTtlDays,
+                                        @Value("${app.notifications.retention.ttl-days:}") String ttlOverrides,
+                                        @Value("${app.notifications.retention.chunk-size:1000}") int chunkSize,
+                                        @Value("${app.notifications.retention.chunk-pause-ms:100}") long chunkPauseMillis) {
+        this.notificationRepository = notificationRepository;
+        this.inboxService = inboxService;
+        this.archive = archive;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttlDays = parseTtls(defaultTtlDays, ttlOverrides);
+        this.chunkSize = chunkSize;
+        this.chunkPauseMillis = chunkPauseMillis;
+
+        FunctionCounter.builder("notification.retention.purged", purged, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("notification.retention.archived", archived, LongAdder::sum).register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${app.notifications.retention.cron:0 15 4 * * *}")
+    public void purgeExpired() {
+        long started = System.currentTimeMillis();
+        long total = 0;
+        for (Map.Entry<Notification.NotificationType, Long> entry : ttlDays.entrySet()) {
+            if (entry.getValue() <= 0) {
+                continue; // Kept forever
+            }
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(entry.getValue());
+            try {
+                total += purgeType(entry.getKey(), cutoff);
+            } catch (RuntimeException e) {
+                // Later chunks and types still run on the next schedule
+                log.error("Notification purge failed for type {}", entry.getKey(), e);
+            }
+        }
+
+        try {
+            int dropped = archive.dropExpiredPartitions();
+            if (dropped > 0) {
+                log.info("Dropped {} expired notification archive partitions", dropped);
+            }
+        } catch (RuntimeException e) {
+            log.error("Dropping expired notification archive partitions failed", e);
+        }
+
+        log.info("Notification purge removed {} rows in {} ms", total, System.currentTimeMillis() - started);
+    }
+
+    private long purgeType(Notification.NotificationType type, LocalDateTime cutoff) {
+        long removed = 0;
+        int chunk;
+        do {
+            chunk = transactionTemplate.execute(status -> purgeChunk(type, cutoff));
+            removed += chunk;
+            if (chunk >= chunkSize && chunkPauseMillis > 0) {
+                // Leave room for user traffic between chunks
+                try {
+                    Thread.sleep(chunkPauseMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return removed;
+                }
+            }
+        } while (chunk >= chunkSize);
+        return removed;
+    }
+
+    /**
+     * Archives and deletes one chunk. The rows are locked when selected, so the
+     * archive copy, the delete and the unread deltas all cover exactly those rows,
+     * even with another instance purging at the same time.
+     */
+    private int purgeChunk(Notification.NotificationType type, LocalDateTime cutoff) {
+        List<Notification> rows = notificationRepository.findExpiredForUpdate(type, cutoff, PageRequest.of(0, chunkSize));
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        List<UUID> ids = new ArrayList<>(rows.size());
+        Set<YearMonth> months = new HashSet<>();
+        Map<Long, Long> unreadDeltas = new HashMap<>();
+        for (Notification row : rows) {
+            ids.add(row.getId());
+            unreadDeltas.merge(row.getUserId(), row.isRead() ? 0L : -1L, Long::sum);
+            months.add(YearMonth.from(row.getCreatedAt()));
+        }
+
+        int archivedRows = archive.isEnabled() ? archive.archive(ids, months) : 0;
+        int deleted = notificationRepository.deleteByIdIn(ids);
+        if (deleted != ids.size()) {
+            // Only possible without row locks; roll the chunk back rather than skew counters
+            throw new IllegalStateException("Purge chunk deleted " + deleted + " of " + ids.size() + " locked rows");
+        }
+        unreadDeltas.forEach(inboxService::onChanged);
+        archived.add(archivedRows);
+        purged.add(deleted);
+        return rows.size();
+    }
+
+    /**
+     * Default TTL for every type, overridden by "TYPE=days" pairs separated by commas.
+     * Zero or less keeps a type forever.
+     */
+    private static Map<Notification.NotificationType, Long> parseTtls(long defaultTtlDays, String overrides) {
+        Map<Notification.NotificationType, Long> ttls = new EnumMap<>(Notification.NotificationType.class);
+        for (Notification.NotificationType type : Notification.NotificationType.values()) {
+            ttls.put(type, defaultTtlDays);
+        }
+        for (String pair : overrides.split(",")) {
+            if (pair.isBlank()) {
+                continue;
+            }
+            String[] parts = pair.split("=");
+            if (parts.length != 2) {
+                throw new IllegalStateException("Invalid app.notifications.retention.ttl-days entry: " + pair);
+            }
+            try {
+                ttls.put(Notification.NotificationType.valueOf(parts[0].trim().toUpperCase()),
+                        Long.parseLong(parts[1].trim()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("Invalid app.notifications.retention.ttl-days entry: " + pair);
+            }
+        }
+        return ttls;
+    }
+}
@@ -2,7 +2,9 @@ package com.prescription.service;
 
 import com.prescription.entity.Notification;
 import com.prescription.repository.NotificationRepository;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -11,11 +13,13 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+@Slf4j
 @Service
 public class NotificationService {
 
@@ -25,65 +29,23 @@ public class NotificationService {
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
 
+    @Autowired
+    private NotificationDispatcher notificationDispatcher;
+
+    @Autowired
+    private NotificationInboxService inboxService;
+
+    @Value("${app.notifications.reminders.batch-size:500}")
+    private int reminderBatchSize;
+
+    /**
+     * Queues the notification in the caller's transaction. It is stored and pushed to
+     * the user by {@link NotificationDispatcher} after that transaction commits.
+     */
     @Transactional
     public void sendNotification(Long userId, String title, String message, Notification.NotificationType type,
                                  Long appointmentId, Long prescriptionId, LocalTime reminderTime, String frequency) {
-        try {
-            System.out.println("🔍 Starting notification save process for user: " + userId);
-
-            Notification notification = Notification.builder()
-                    .userId(userId)
-                    .title(title)
-                    .message(message)
-                    .type(type)
-                    .appointmentId(appointmentId)
-                    .prescriptionId(prescriptionId)
-                    .reminderTime(reminderTime)
-                    .frequency(frequency)
-                    .createdAt(LocalDateTime.now())
-                    .isRead(false)
-                    .build();
-
-            System.out.println("🔍 Notification object created: " + notification);
-
-            Notification saved = notificationRepository.save(notification);
-            notificationRepository.flush();
-            System.out.println("✅ Notification saved successfully with ID: " + saved.getId());
-
-            List<Notification> allUserNotifications = notificationRepository.findByUserIdOrderByCreatedAtDesc(userId);
-            boolean found = allUserNotifications.stream().anyMatch(n -> n.getId().equals(saved.getId()));
-            System.out.println("✅ Notification exists in database: " + found);
-
-            if (!found) {
-                System.err.println("❌ FAILED: Notification was NOT found in database after save!");
-                throw new RuntimeException("Notification save failed");
-            }
-
-            Map<String, Object> notificationData = new HashMap<>();
-            notificationData.put("id", saved.getId());
-            notificationData.put("title", saved.getTitle());
-            notificationData.put("message", saved.getMessage());
-            notificationData.put("type", saved.getType());
-            notificationData.put("timestamp", saved.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
-            notificationData.put("appointmentId", saved.getAppointmentId());
-            notificationData.put("prescriptionId", saved.getPrescriptionId());
-            notificationData.put("reminderTime", saved.getReminderTime() != null ? saved.getReminderTime().toString() : null);
-            notificationData.put("frequency", saved.getFrequency());
-            notificationData.put("isRead", saved.isRead());
-
-            messagingTemplate.convertAndSendToUser(
-                    userId.toString(),
-                    "/queue/notifications",
-                    notificationData
-            );
-
-            System.out.println("📱 Real-time notification sent to user: " + userId);
-
-        } catch (Exception e) {
-            System.err.println("❌ Error saving notification: " + e.getMessage());
-            e.printStackTrace();
-            throw new RuntimeException("Failed to save notification", e);
-        }
+        notificationDispatcher.enqueue(userId, title, message, type, appointmentId, prescriptionId, reminderTime, frequency);
     }
 
     public void sendAppointmentNotification(Long userId, Long appointmentId, Notification.NotificationType type, String details) {
@@ -130,59 +92,81 @@ public class NotificationService {
         sendNotification(userId, title, message, Notification.NotificationType.MEDICINE_REMINDER, null, prescriptionId, reminderTime, frequency);
     }
 
+    /**
+     * Fires the medicine reminders due this minute. Only those reminders are loaded,
+     * through the (type, reminder_time) index, and each batch's state changes are
+     * written with one bulk update per kind of change.
+     */
     @Scheduled(cron = "0 * * * * *") // Run every minute
     @Transactional
     public void checkMedicineReminders() {
         LocalTime currentTime = LocalTime.now().withSecond(0).withNano(0);
-        List<Notification> reminders = notificationRepository.findAll().stream()
-                .filter(n -> n.getType() == Notification.NotificationType.MEDICINE_REMINDER)
-                .filter(n -> n.getReminderTime() != null && n.getReminderTime().equals(currentTime))
-                .toList();
-
-        for (Notification reminder : reminders) {
-            Map<String, Object> notificationData = new HashMap<>();
-            notificationData.put("id", reminder.getId());
-            notificationData.put("title", reminder.getTitle());
-            notificationData.put("message", reminder.getMessage());
-            notificationData.put("type", reminder.getType());
-            notificationData.put("timestamp", reminder.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
-            notificationData.put("prescriptionId", reminder.getPrescriptionId());
-            notificationData.put("reminderTime", reminder.getReminderTime().toString());
-            notificationData.put("frequency", reminder.getFrequency());
-            notificationData.put("isRead", reminder.isRead());
-
-            messagingTemplate.convertAndSendToUser(
-                    reminder.getUserId().toString(),
-                    "/queue/notifications",
-                    notificationData
-            );
-
-            System.out.println("📱 Sent medicine reminder to user: " + reminder.getUserId());
-
-            if ("DAILY".equals(reminder.getFrequency()) || "TWICE_DAILY".equals(reminder.getFrequency())) {
-                reminder.setCreatedAt(LocalDateTime.now());
-                notificationRepository.save(reminder);
-            } else {
-                reminder.setRead(true);
-                notificationRepository.save(reminder);
+        List<Notification> reminders = notificationRepository.findByTypeAndReminderTime(
+                Notification.NotificationType.MEDICINE_REMINDER, currentTime);
+        if (reminders.isEmpty()) {
+            return;
+        }
+
+        for (int start = 0; start < reminders.size(); start += reminderBatchSize) {
+            List<Notification> batch = reminders.subList(start, Math.min(start + reminderBatchSize, reminders.size()));
+            List<UUID> recurring = new ArrayList<>();
+            List<UUID> completed = new ArrayList<>();
+            Map<Long, Long> unreadDeltas = new HashMap<>();
+
+            for (Notification reminder : batch) {
+                Map<String, Object> notificationData = new HashMap<>();
+                notificationData.put("id", reminder.getId());
+                notificationData.put("title", reminder.getTitle());
+                notificationData.put("message", reminder.getMessage());
+                notificationData.put("type", reminder.getType());
+                notificationData.put("timestamp", reminder.getCreatedAt().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+                notificationData.put("prescriptionId", reminder.getPrescriptionId());
+                notificationData.put("reminderTime", reminder.getReminderTime().toString());
+                notificationData.put("frequency", reminder.getFrequency());
+                notificationData.put("isRead", reminder.isRead());
+
+                messagingTemplate.convertAndSendToUser(
+                        reminder.getUserId().toString(),
+                        "/queue/notifications",
+                        notificationData
+                );
+
+                if ("DAILY".equals(reminder.getFrequency()) || "TWICE_DAILY".equals(reminder.getFrequency())) {
+                    recurring.add(reminder.getId());
+                    unreadDeltas.putIfAbsent(reminder.getUserId(), 0L);
+                } else {
+                    completed.add(reminder.getId());
+                    unreadDeltas.merge(reminder.getUserId(), reminder.isRead() ? 0L : -1L, Long::sum);
+                }
             }
+
+            if (!recurring.isEmpty()) {
+                notificationRepository.updateCreatedAtByIdIn(recurring, LocalDateTime.now());
+            }
+            if (!completed.isEmpty()) {
+                notificationRepository.markReadByIdIn(completed);
+            }
+            // Recurring reminders move to the top of the inbox, completed ones stop counting as unread
+            unreadDeltas.forEach(inboxService::onChanged);
         }
+
+        log.debug("Sent {} medicine reminders for {}", reminders.size(), currentTime);
     }
 
     public void sendSystemAlert(Long userId, String message) {
         sendNotification(userId, "System Alert", message, Notification.NotificationType.SYSTEM_ALERT, null, null, null, null);
     }
 
-    public List<Notification> getUserNotifications(Long userId) {
-        return notificationRepository.findByUserIdOrderByCreatedAtDesc(userId);
+    public List<Notification> getUserNotifications(Long userId, Integer page, Integer size) {
+        return inboxService.getInbox(userId, page, size);
     }
 
-    public List<Notification> getUnreadNotifications(Long userId) {
-        return notificationRepository.findByUserIdAndIsReadFalseOrderByCreatedAtDesc(userId);
+    public List<Notification> getUnreadNotifications(Long userId, Integer page, Integer size) {
+        return inboxService.getUnread(userId, page, size);
     }
 
     public long getUnreadCount(Long userId) {
-        return notificationRepository.countByUserIdAndIsReadFalse(userId);
+        return inboxService.getUnreadCount(userId);
     }
 
     public List<Notification> getAppointmentNotifications(Long appointmentId) {
@@ -193,25 +177,32 @@ public class NotificationService {
         return notificationRepository.findByPrescriptionIdOrderByCreatedAtDesc(prescriptionId);
     }
 
+    @Transactional
     public void markAsRead(UUID notificationId) {
         notificationRepository.findById(notificationId).ifPresent(notification -> {
-            notification.setRead(true);
-            notificationRepository.save(notification);
+            int changed = notificationRepository.markReadByIdIn(List.of(notificationId));
+            inboxService.onChanged(notification.getUserId(), -changed);
         });
     }
 
+    @Transactional
     public void markAllAsRead(Long userId) {
-        List<Notification> unread = notificationRepository.findByUserIdAndIsReadFalseOrderByCreatedAtDesc(userId);
-        unread.forEach(notification -> notification.setRead(true));
-        notificationRepository.saveAll(unread);
+        int changed = notificationRepository.markAllReadByUserId(userId);
+        inboxService.onChanged(userId, -changed);
     }
 
+    @Transactional
     public void deleteNotification(UUID notificationId) {
-        notificationRepository.deleteById(notificationId);
+        notificationRepository.findById(notificationId).ifPresent(notification -> {
+            int deleted = notificationRepository.deleteOneById(notificationId);
+            inboxService.onChanged(notification.getUserId(), deleted > 0 && !notification.isRead() ? -1 : 0);
+        });
     }
 
+    @Transactional
     public void clearAllNotifications(Long userId) {
-        List<Notification> userNotifications = notificationRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        notificationRepository.deleteAll(userNotifications);
+        int unread = notificationRepository.deleteUnreadByUserId(userId);
+        notificationRepository.deleteAllByUserId(userId);
+        inboxService.onChanged(userId, -unread);
     }
 }
\ No newline at end of file
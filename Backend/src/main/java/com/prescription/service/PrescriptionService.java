@@ -3,13 +3,19 @@ package com.prescription.service;
 import com.prescription.dto.*;
 import com.prescription.entity.*;
 import com.prescription.repository.*;
+import com.prescription.util.KeysetCursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -34,6 +40,20 @@ public class PrescriptionService {
     @Autowired
     private MedicineService medicineService;
 
+    @Autowired
+    private DoctorDashboardCounterService dashboardCounterService;
+
+    @Autowired
+    private MedicineCatalogueCache catalogueCache;
+
+    private static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    @Value("${app.prescriptions.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${app.prescriptions.page.max-size:200}")
+    private int maxPageSize;
+
     public PrescriptionDto createPrescription(PrescriptionCreateDto createDto, Long doctorId) {
         // Validate doctor
         Optional<User> doctorOpt = userRepository.findById(doctorId);
@@ -50,6 +70,16 @@ public class PrescriptionService {
         User doctor = doctorOpt.get();
         User patient = patientOpt.get();
 
+        // Validate all prescribed medicines against the catalogue cache in one call
+        Map<Long, MedicineSearchDto> catalogue = catalogueCache.getAll(createDto.getMedicines().stream()
+                .map(PrescriptionMedicineCreateDto::getMedicineId)
+                .toList());
+        for (PrescriptionMedicineCreateDto medicineDto : createDto.getMedicines()) {
+            if (!catalogue.containsKey(medicineDto.getMedicineId())) {
+                throw new RuntimeException("Medicine not found with id: " + medicineDto.getMedicineId());
+            }
+        }
+
         // Create prescription
         Prescription prescription = new Prescription();
         prescription.setDiagnosis(createDto.getDiagnosis());
@@ -60,31 +90,19 @@ public class PrescriptionService {
         prescription.setUpdatedAt(LocalDateTime.now());
         prescription.setAdvice(createDto.getAdvice());
 
-
-        prescription = prescriptionRepository.save(prescription);
-
-
-        // Create prescription medicines
+        // Build the whole graph first; it is persisted by cascade from the prescription
+        // and flushed at commit as one JDBC batch per table
         List<PrescriptionMedicine> prescriptionMedicines = new ArrayList<>();
 
         for (PrescriptionMedicineCreateDto medicineDto : createDto.getMedicines()) {
-            Optional<Medicine> medicineOpt = medicineRepository.findById(medicineDto.getMedicineId());
-            if (medicineOpt.isEmpty()) {
-                throw new RuntimeException("Medicine not found with id: " + medicineDto.getMedicineId());
-            }
-
             PrescriptionMedicine prescriptionMedicine = new PrescriptionMedicine();
             prescriptionMedicine.setPrescription(prescription);
-            prescriptionMedicine.setMedicine(medicineOpt.get());
+            prescriptionMedicine.setMedicine(medicineRepository.getReferenceById(medicineDto.getMedicineId()));
             prescriptionMedicine.setDurationDays(medicineDto.getDurationDays());
             prescriptionMedicine.setSpecialInstructions(medicineDto.getSpecialInstructions());
             prescriptionMedicine.setCreatedAt(prescription.getCreatedAt());
             prescriptionMedicine.setUpdatedAt(prescription.getUpdatedAt());
 
-
-
-            prescriptionMedicine = prescriptionMedicineRepository.save(prescriptionMedicine);
-
             // Create medicine timings
             List<MedicineTiming> timings = new ArrayList<>();
             for (MedicineTimingCreateDto timingDto : medicineDto.getTimings()) {
@@ -105,29 +123,89 @@ public class PrescriptionService {
         }
 
         prescription.setPrescriptionMedicines(prescriptionMedicines);
+        prescription = prescriptionRepository.save(prescription);
+        dashboardCounterService.onPrescriptionCreated(doctorId, patient.getId());
 
         return convertToDto(prescription);
     }
 
-    public List<PrescriptionDto> getPrescriptionsByDoctor(Long doctorId) {
-        List<Prescription> prescriptions = prescriptionRepository.findByDoctorIdOrderByUpdatedAtDesc(doctorId);
-        List<PrescriptionDto> dtos = new ArrayList<>();
+    /**
+     * Newest-first page of a doctor's prescriptions, continuing after the given cursor.
+     */
+    public CursorPage<PrescriptionDto> getPrescriptionsByDoctor(Long doctorId, String cursor, Integer limit) {
+        KeysetCursor after = KeysetCursor.decodeOr(cursor, KeysetCursor.FIRST_DESCENDING);
+        int size = pageSize(cursor, limit);
+        List<Prescription> rows = prescriptionRepository.findDoctorPageByCreatedAtDesc(
+                doctorId, after.position(), after.id(), pageRequest(size));
+        return toPage(rows, size);
+    }
 
-        for (Prescription prescription : prescriptions) {
-            dtos.add(convertToDto(prescription));
+    /**
+     * Newest-first page of a patient's prescriptions, continuing after the given cursor.
+     */
+    public CursorPage<PrescriptionDto> getPrescriptionsByPatient(Long patientId, String cursor, Integer limit) {
+        KeysetCursor after = KeysetCursor.decodeOr(cursor, KeysetCursor.FIRST_DESCENDING);
+        int size = pageSize(cursor, limit);
+        List<Prescription> rows = prescriptionRepository.findPatientPageByCreatedAtDesc(
+                patientId, after.position(), after.id(), pageRequest(size));
+        return toPage(rows, size);
+    }
+
+    // Without cursor or limit the whole listing is returned, as before paging existed
+    private int pageSize(String cursor, Integer limit) {
+        if (limit == null) {
+            return cursor == null || cursor.isBlank() ? UNBOUNDED : defaultPageSize;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive");
         }
+        return Math.min(limit, maxPageSize);
+    }
 
-        return dtos;
+    private Pageable pageRequest(int size) {
+        return size == UNBOUNDED ? Pageable.unpaged() : PageRequest.of(0, size + 1);
+    }
+
+    // One extra row is fetched to tell whether another page follows
+    private CursorPage<PrescriptionDto> toPage(List<Prescription> rows, int size) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(convertPageToDto(rows), null);
+        }
+        List<Prescription> items = rows.subList(0, size);
+        Prescription last = items.get(size - 1);
+        return new CursorPage<>(convertPageToDto(items),
+                new KeysetCursor(last.getCreatedAt(), last.getId()).encode());
     }
 
-    public List<PrescriptionDto> getPrescriptionsByPatient(Long patientId) {
-        List<Prescription> prescriptions = prescriptionRepository.findByPatientId(patientId);
-        List<PrescriptionDto> dtos = new ArrayList<>();
+    /**
+     * Converts a page whose doctor and patient are already fetched. Line items and
+     * timings for the whole page come from one query and medicine details from the
+     * catalogue cache, so the query count does not grow with the page size.
+     */
+    private List<PrescriptionDto> convertPageToDto(List<Prescription> prescriptions) {
+        if (prescriptions.isEmpty()) {
+            return new ArrayList<>();
+        }
 
-        for (Prescription prescription : prescriptions) {
-            dtos.add(convertToDto(prescription));
+        List<Long> prescriptionIds = prescriptions.stream().map(Prescription::getId).toList();
+        Map<Long, List<PrescriptionMedicine>> medicinesByPrescription = new HashMap<>();
+        for (PrescriptionMedicine prescriptionMedicine :
+                prescriptionMedicineRepository.findWithTimingsByPrescriptionIdIn(prescriptionIds)) {
+            // Reading the id does not initialize the lazy prescription reference
+            medicinesByPrescription.computeIfAbsent(prescriptionMedicine.getPrescription().getId(),
+                    id -> new ArrayList<>()).add(prescriptionMedicine);
         }
 
+        Map<Long, MedicineSearchDto> catalogue = catalogueCache.getAll(medicinesByPrescription.values().stream()
+                .flatMap(List::stream)
+                .map(prescriptionMedicine -> prescriptionMedicine.getMedicine().getId())
+                .toList());
+
+        List<PrescriptionDto> dtos = new ArrayList<>(prescriptions.size());
+        for (Prescription prescription : prescriptions) {
+            dtos.add(convertToDto(prescription,
+                    medicinesByPrescription.getOrDefault(prescription.getId(), List.of()), catalogue));
+        }
         return dtos;
     }
 
@@ -136,7 +214,18 @@ public class PrescriptionService {
         return prescriptionOpt.map(this::convertToDto);
     }
 
-    private PrescriptionDto convertToDto(Prescription prescription) {
+    public PrescriptionDto convertToDto(Prescription prescription) {
+        List<PrescriptionMedicine> prescriptionMedicines = prescription.getPrescriptionMedicines() != null
+                ? prescription.getPrescriptionMedicines()
+                : List.of();
+        Map<Long, MedicineSearchDto> catalogue = catalogueCache.getAll(prescriptionMedicines.stream()
+                .map(prescriptionMedicine -> prescriptionMedicine.getMedicine().getId())
+                .toList());
+        return convertToDto(prescription, prescriptionMedicines, catalogue);
+    }
+
+    private PrescriptionDto convertToDto(Prescription prescription, List<PrescriptionMedicine> prescriptionMedicines,
+                                         Map<Long, MedicineSearchDto> catalogue) {
         PrescriptionDto dto = new PrescriptionDto();
         dto.setId(prescription.getId());
         dto.setDiagnosis(prescription.getDiagnosis());
@@ -149,36 +238,37 @@ public class PrescriptionService {
         dto.setDoctor(userService.convertToDto(prescription.getDoctor()));
         dto.setPatient(userService.convertToDto(prescription.getPatient()));
 
-        // Convert medicines
+        // Convert medicines, with medicine details from the catalogue cache
         List<PrescriptionMedicineDto> medicineDtos = new ArrayList<>();
-        if (prescription.getPrescriptionMedicines() != null) {
-            for (PrescriptionMedicine prescriptionMedicine : prescription.getPrescriptionMedicines()) {
-                PrescriptionMedicineDto medicineDto = new PrescriptionMedicineDto();
-                medicineDto.setId(prescriptionMedicine.getId());
-                medicineDto.setDurationDays(prescriptionMedicine.getDurationDays());
-                medicineDto.setSpecialInstructions(prescriptionMedicine.getSpecialInstructions());
-
-                // Convert medicine details
-                MedicineSearchDto medicineSearchDto = medicineService.convertToSearchDto(prescriptionMedicine.getMedicine());
-                medicineDto.setMedicine(medicineSearchDto);
-
-                // Convert timings
-                List<MedicineTimingDto> timingDtos = new ArrayList<>();
-                if (prescriptionMedicine.getMedicineTimings() != null) {
-                    for (MedicineTiming timing : prescriptionMedicine.getMedicineTimings()) {
-                        MedicineTimingDto timingDto = new MedicineTimingDto();
-                        timingDto.setId(timing.getId());
-                        timingDto.setMealRelation(timing.getMealRelation().name());
-                        timingDto.setTimeOfDay(timing.getTimeOfDay().name());
-                        timingDto.setAmount(timing.getAmount());
-                        timingDto.setSpecificTime(timing.getSpecificTime());
-                        timingDto.setIntervalHours(timing.getIntervalHours());
-                        timingDtos.add(timingDto);
-                    }
+        for (PrescriptionMedicine prescriptionMedicine : prescriptionMedicines) {
+            PrescriptionMedicineDto medicineDto = new PrescriptionMedicineDto();
+            medicineDto.setId(prescriptionMedicine.getId());
+            medicineDto.setDurationDays(prescriptionMedicine.getDurationDays());
+            medicineDto.setSpecialInstructions(prescriptionMedicine.getSpecialInstructions());
+
+            // Convert medicine details
+            MedicineSearchDto medicineSearchDto = catalogue.get(prescriptionMedicine.getMedicine().getId());
+            if (medicineSearchDto == null) {
+                medicineSearchDto = medicineService.convertToSearchDto(prescriptionMedicine.getMedicine());
+            }
+            medicineDto.setMedicine(medicineSearchDto);
+
+            // Convert timings
+            List<MedicineTimingDto> timingDtos = new ArrayList<>();
+            if (prescriptionMedicine.getMedicineTimings() != null) {
+                for (MedicineTiming timing : prescriptionMedicine.getMedicineTimings()) {
+                    MedicineTimingDto timingDto = new MedicineTimingDto();
+                    timingDto.setId(timing.getId());
+                    timingDto.setMealRelation(timing.getMealRelation().name());
+                    timingDto.setTimeOfDay(timing.getTimeOfDay().name());
+                    timingDto.setAmount(timing.getAmount());
+                    timingDto.setSpecificTime(timing.getSpecificTime());
+                    timingDto.setIntervalHours(timing.getIntervalHours());
+                    timingDtos.add(timingDto);
                 }
-                medicineDto.setTimings(timingDtos);
-                medicineDtos.add(medicineDto);
             }
+            medicineDto.setTimings(timingDtos);
+            medicineDtos.add(medicineDto);
         }
         dto.setMedicines(medicineDtos);
 
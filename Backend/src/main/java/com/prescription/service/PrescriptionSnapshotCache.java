@@ -0,0 +1,149 @@
+package com.prescription.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.prescription.dto.PrescriptionDto;
+import com.prescription.entity.Prescription;
+import com.prescription.repository.PrescriptionRepository;
+import com.prescription.repository.PrescriptionVersionRow;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of rendered prescription documents.
+ *
+ * Prescriptions are not edited once issued, so each one is rendered to JSON once
+ * and served from memory afterwards, together with a strong ETag over the exact
+ * bytes. The rendering also carries the doctor's and patient's profiles and the
+ * catalogue details of each medicine, so a snapshot records the updatedAt of the
+ * prescription, both users and the newest of its medicines and generics, and every
+ * hit compares them with one small aggregate query; a profile or catalogue edit on
+ * any instance re-renders the prescription on its next read. Access checks use the doctor and patient ids
+ * kept on the snapshot.
+ */
+@Component
+public class PrescriptionSnapshotCache {
+
+    public record Snapshot(Long id, Long doctorId, Long patientId, String version,
+                           byte[] body, String etag) {
+    }
+
+    private final PrescriptionRepository prescriptionRepository;
+    private final PrescriptionService prescriptionService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int maxSize;
+
+    private final Map<Long, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public PrescriptionSnapshotCache(PrescriptionRepository prescriptionRepository,
+                                     PrescriptionService prescriptionService,
+                                     ObjectMapper objectMapper,
+                                     PlatformTransactionManager transactionManager,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${app.prescriptions.snapshot-cache.max-size:5000}") int maxSize) {
+        this.prescriptionRepository = prescriptionRepository;
+        this.prescriptionService = prescriptionService;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxSize = maxSize;
+
+        FunctionCounter.builder("prescription.snapshot.cache.hits", hits, LongAdder::sum).register(meterRegistry);
+        FunctionCounter.builder("prescription.snapshot.cache.misses", misses, LongAdder::sum).register(meterRegistry);
+        Gauge.builder("prescription.snapshot.cache.size", snapshots, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Rendered prescription, from memory when possible; empty if it does not exist.
+     */
+    public Optional<Snapshot> get(Long prescriptionId) {
+        Snapshot snapshot = snapshots.get(prescriptionId);
+        if (snapshot != null) {
+            Optional<PrescriptionVersionRow> current = prescriptionRepository.findVersionById(prescriptionId);
+            if (current.isEmpty()) {
+                evict(prescriptionId);
+                return Optional.empty();
+            }
+            if (snapshot.version().equals(version(current.get()))) {
+                hits.increment();
+                return Optional.of(snapshot);
+            }
+        }
+        misses.increment();
+
+        Optional<Snapshot> rendered = readOnlyTransaction.execute(status ->
+                prescriptionRepository.findById(prescriptionId).map(this::render));
+        rendered.ifPresent(this::put);
+        return rendered;
+    }
+
+    public void evict(Long prescriptionId) {
+        snapshots.remove(prescriptionId);
+    }
+
+    private Snapshot render(Prescription prescription) {
+        // Read first: an edit committed while rendering makes the next read render again
+        String version = prescriptionRepository.findVersionById(prescription.getId())
+                .map(PrescriptionSnapshotCache::version)
+                .orElseThrow(() -> new IllegalStateException("Prescription " + prescription.getId() + " disappeared"));
+        PrescriptionDto dto = prescriptionService.convertToDto(prescription);
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(dto);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Prescription " + prescription.getId() + " could not be rendered", e);
+        }
+        return new Snapshot(prescription.getId(), dto.getDoctor().getId(), dto.getPatient().getId(),
+                version, body, etag(prescription.getId(), version, body));
+    }
+
+    private static String version(PrescriptionVersionRow row) {
+        return row.getUpdatedAt() + "|" + row.getDoctorUpdatedAt() + "|" + row.getPatientUpdatedAt()
+                + "|" + row.getMedicinesUpdatedAt() + "|" + row.getGenericsUpdatedAt();
+    }
+
+    // Strong validator: the id and versions plus a digest of the exact bytes served
+    private static String etag(Long id, String version, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((id + "|" + version + "|").getBytes(StandardCharsets.UTF_8));
+            byte[] hash = digest.digest(body);
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // Last render wins; an older one that lands late is replaced on its next read
+    private void put(Snapshot snapshot) {
+        if (snapshots.size() >= maxSize && !snapshots.containsKey(snapshot.id())) {
+            // Drop arbitrary entries down to 90% of capacity
+            Iterator<Long> it = snapshots.keySet().iterator();
+            int target = (int) (maxSize * 0.9);
+            while (snapshots.size() > target && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        snapshots.put(snapshot.id(), snapshot);
+    }
+}
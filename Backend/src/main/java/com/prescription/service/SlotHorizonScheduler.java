@@ -0,0 +1,285 @@
+package com.prescription.service;
+
+import com.prescription.entity.AppointmentSettings;
+import com.prescription.entity.AvailabilityTemplate;
+import com.prescription.entity.SlotGenerationCheckpoint;
+import com.prescription.entity.User;
+import com.prescription.repository.AppointmentSettingsRepository;
+import com.prescription.repository.AvailabilityTemplateRepository;
+import com.prescription.repository.SlotGenerationCheckpointRepository;
+import com.prescription.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps each doctor's materialized slots generated up to a rolling horizon.
+ *
+ * An off-peak job walks every doctor with active templates and extends their slots
+ * one day at a time on a small worker pool. Each day is generated and checkpointed
+ * in its own transaction, so an interrupted run resumes where it stopped, and since
+ * the materializer skips slots that already exist, re-running a day is harmless.
+ * Template changes only reset the checkpoint and enqueue the doctor; generation
+ * never runs on the request thread. A regeneration also bumps the doctor's
+ * generation number, which stops a pass already in flight before it can write a
+ * checkpoint past the days being regenerated, and the next pass starts from today.
+ */
+@Slf4j
+@Component
+public class SlotHorizonScheduler {
+
+    private final SlotMaterializer slotMaterializer;
+    private final SlotGenerationCheckpointRepository checkpointRepository;
+    private final AvailabilityTemplateRepository templateRepository;
+    private final AppointmentSettingsRepository settingsRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int horizonDays;
+    private final boolean enabled;
+    private final ThreadPoolTaskExecutor workers;
+
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final Set<Long> rerun = ConcurrentHashMap.newKeySet();
+    private final Set<Long> restartFromToday = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Long> generations = new ConcurrentHashMap<>();
+    private final Map<Long, LocalDate> horizons = new ConcurrentHashMap<>();
+    private final MultiGauge horizonGauge;
+
+    public SlotHorizonScheduler(SlotMaterializer slotMaterializer,
+                                SlotGenerationCheckpointRepository checkpointRepository,
+                                AvailabilityTemplateRepository templateRepository,
+                                AppointmentSettingsRepository settingsRepository,
+                                UserRepository userRepository,
+                                TransactionTemplate transactionTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.availability.horizon.days:60}") int horizonDays,
+                                @Value("${app.availability.horizon.workers:2}") int workerCount,
+                                @Value("${app.availability.mode:materialized}") String availabilityMode) {
+        this.slotMaterializer = slotMaterializer;
+        this.checkpointRepository = checkpointRepository;
+        this.templateRepository = templateRepository;
+        this.settingsRepository = settingsRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.horizonDays = horizonDays;
+        this.enabled = !"virtual".equalsIgnoreCase(availabilityMode);
+
+        this.workers = new ThreadPoolTaskExecutor();
+        workers.setCorePoolSize(workerCount);
+        workers.setMaxPoolSize(workerCount);
+        workers.setQueueCapacity(10_000);
+        workers.setThreadNamePrefix("slot-horizon-");
+        workers.initialize();
+
+        this.horizonGauge = MultiGauge.builder("availability.slots.horizon.days")
+                .description("Days of generated slots ahead of today, per doctor")
+                .register(meterRegistry);
+        Gauge.builder("availability.slots.generation.lag.days", this, SlotHorizonScheduler::maxLagDays)
+                .description("Largest gap between the target horizon and a doctor's generated horizon")
+                .register(meterRegistry);
+        Gauge.builder("availability.slots.generation.queued", inFlight, Set::size)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    /**
+     * Off-peak sweep over every doctor with active templates.
+     */
+    @Scheduled(cron = "${app.availability.horizon.cron:0 30 2 * * *}")
+    public void extendAllHorizons() {
+        if (!enabled) {
+            return;
+        }
+        List<Long> doctorIds = templateRepository.findDoctorIdsWithActiveTemplates();
+        log.info("Extending slot horizon for {} doctors", doctorIds.size());
+        doctorIds.forEach(this::enqueue);
+    }
+
+    /**
+     * Forgets the doctor's checkpoint and regenerates from today in the background.
+     * When called inside a transaction, the work starts only after it commits.
+     */
+    public void requestRegeneration(Long doctorId) {
+        if (!enabled) {
+            return;
+        }
+        horizons.remove(doctorId);
+        // Stop a pass in flight now; it would otherwise checkpoint days about to be deleted
+        nextGeneration(doctorId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            checkpointRepository.findById(doctorId).ifPresent(checkpointRepository::delete);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    restart(doctorId);
+                }
+            });
+        } else {
+            transactionTemplate.executeWithoutResult(status ->
+                    checkpointRepository.findById(doctorId).ifPresent(checkpointRepository::delete));
+            restart(doctorId);
+        }
+    }
+
+    private void restart(Long doctorId) {
+        // A day the stopped pass committed just before the bump may have recreated the checkpoint
+        nextGeneration(doctorId);
+        restartFromToday.add(doctorId);
+        enqueue(doctorId);
+    }
+
+    private long nextGeneration(Long doctorId) {
+        return generations.merge(doctorId, 1L, Long::sum);
+    }
+
+    private long generation(Long doctorId) {
+        return generations.getOrDefault(doctorId, 0L);
+    }
+
+    private void enqueue(Long doctorId) {
+        if (!inFlight.add(doctorId)) {
+            // Already running; make it start over once the current pass finishes
+            rerun.add(doctorId);
+            return;
+        }
+        try {
+            workers.execute(() -> {
+                try {
+                    do {
+                        extendHorizon(doctorId);
+                    } while (rerun.remove(doctorId));
+                } catch (Exception e) {
+                    log.error("Slot horizon extension failed for doctor {}", doctorId, e);
+                } finally {
+                    inFlight.remove(doctorId);
+                    if (rerun.remove(doctorId)) {
+                        enqueue(doctorId);
+                    }
+                }
+            });
+        } catch (TaskRejectedException e) {
+            inFlight.remove(doctorId);
+            log.warn("Slot horizon queue full, doctor {} will be picked up by the next run", doctorId);
+        }
+    }
+
+    private void extendHorizon(Long doctorId) {
+        LocalDate today = LocalDate.now();
+        LocalDate target = today.plusDays(horizonDays);
+        long generation = generation(doctorId);
+
+        // Slots that already exist are skipped, so regenerating from today is safe
+        LocalDate horizon = restartFromToday.remove(doctorId)
+                ? today.minusDays(1)
+                : checkpointRepository.findById(doctorId)
+                        .map(SlotGenerationCheckpoint::getHorizonDate)
+                        .filter(date -> !date.isBefore(today))
+                        .orElse(today.minusDays(1));
+        horizons.put(doctorId, horizon);
+
+        while (horizon.isBefore(target)) {
+            LocalDate day = horizon.plusDays(1);
+            boolean generated;
+            try {
+                generated = generateDayInTransaction(doctorId, day, generation);
+            } catch (DataIntegrityViolationException e) {
+                // Another instance stored this day's slots or checkpoint first; retry against its rows
+                generated = generateDayInTransaction(doctorId, day, generation);
+            }
+            if (!generated) {
+                // Superseded by a regeneration, which reruns this doctor from today
+                return;
+            }
+            horizon = day;
+            horizons.put(doctorId, horizon);
+        }
+        publishHorizons();
+    }
+
+    private boolean generateDayInTransaction(Long doctorId, LocalDate day, long generation) {
+        Boolean generated = transactionTemplate.execute(status -> {
+            if (generateDay(doctorId, day, generation)) {
+                return true;
+            }
+            status.setRollbackOnly();
+            return false;
+        });
+        return Boolean.TRUE.equals(generated);
+    }
+
+    /**
+     * Generates one day and advances the checkpoint. Returns false, without
+     * checkpointing, if a regeneration was requested since the pass started.
+     */
+    private boolean generateDay(Long doctorId, LocalDate day, long generation) {
+        if (generation(doctorId) != generation) {
+            return false;
+        }
+        User doctor = userRepository.findById(doctorId).orElse(null);
+        if (doctor == null) {
+            checkpointRepository.findById(doctorId).ifPresent(checkpointRepository::delete);
+            return true;
+        }
+
+        List<AvailabilityTemplate> templates = templateRepository.findByDoctorAndIsActiveOrderByPriorityDesc(doctor, true);
+        int slotDuration = settingsRepository.findByDoctor(doctor)
+                .map(AppointmentSettings::getSlotDurationMinutes)
+                .orElse(30);
+        slotMaterializer.materialize(doctor, templates, day, day, slotDuration);
+
+        SlotGenerationCheckpoint checkpoint = checkpointRepository.findById(doctorId)
+                .orElseGet(() -> {
+                    SlotGenerationCheckpoint created = new SlotGenerationCheckpoint();
+                    created.setDoctorId(doctorId);
+                    return created;
+                });
+        if (generation(doctorId) != generation) {
+            return false;
+        }
+        checkpoint.setHorizonDate(day);
+        checkpointRepository.save(checkpoint);
+        return true;
+    }
+
+    private void publishHorizons() {
+        LocalDate today = LocalDate.now();
+        horizonGauge.register(horizons.entrySet().stream()
+                .map(entry -> MultiGauge.Row.of(
+                        Tags.of("doctorId", entry.getKey().toString()),
+                        ChronoUnit.DAYS.between(today, entry.getValue())))
+                .toList(), true);
+    }
+
+    private double maxLagDays() {
+        LocalDate target = LocalDate.now().plusDays(horizonDays);
+        return horizons.values().stream()
+                .mapToLong(horizon -> Math.max(0, ChronoUnit.DAYS.between(horizon, target)))
+                .max()
+                .orElse(0);
+    }
+}
@@ -0,0 +1,223 @@
+package com.prescription.service;
+
+import com.prescription.entity.AvailabilityException;
+import com.prescription.entity.AvailabilityTemplate;
+import com.prescription.entity.DoctorAvailabilitySlot;
+import com.prescription.entity.User;
+import com.prescription.repository.AvailabilityExceptionRepository;
+import com.prescription.repository.DoctorAvailabilitySlotRepository;
+import com.prescription.util.AvailabilityRuleCache;
+import com.prescription.util.CompiledAvailabilityRule;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Expands availability templates into slot rows for a whole date window at once.
+ *
+ * Exceptions and existing slots for the window are loaded with one query each,
+ * the new slots are computed in memory and written with JDBC batch inserts,
+ * instead of one conflict lookup and one insert per slot.
+ *
+ * Every instance runs the horizon job, so two of them may fill the same day at
+ * once. The uk_doctor_slot_window constraint keeps a window from being stored
+ * twice: on PostgreSQL the losing insert is skipped with ON CONFLICT DO NOTHING,
+ * elsewhere it fails the day's transaction, which the next pass retries against
+ * the rows the other instance stored.
+ */
+@Component
+@Transactional
+public class SlotMaterializer {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SLOT_SQL =
+            "INSERT INTO doctor_availability_slots " +
+            "(doctor_id, slot_date, start_time, end_time, slot_status, generated_from_template_id, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_SLOT_SKIP_DUPLICATES_SQL = INSERT_SLOT_SQL + " ON CONFLICT DO NOTHING";
+
+    private static final int[] COLUMN_TYPES = {
+            Types.BIGINT, Types.DATE, Types.TIME, Types.TIME, Types.VARCHAR,
+            Types.BIGINT, Types.TIMESTAMP, Types.TIMESTAMP
+    };
+
+    @Autowired
+    private AvailabilityExceptionRepository exceptionRepository;
+
+    @Autowired
+    private DoctorAvailabilitySlotRepository slotRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AvailabilityRuleCache ruleCache;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private volatile String insertSql;
+
+    /**
+     * Generates slots for the given templates between startDate and endDate (inclusive).
+     * Templates are applied in the order given; a slot already present in the window,
+     * or produced by an earlier template, is not inserted twice.
+     *
+     * @return number of slots inserted; windows another instance stored first are not counted
+     */
+    public int materialize(User doctor, List<AvailabilityTemplate> templates,
+                           LocalDate startDate, LocalDate endDate, int slotDuration) {
+        if (templates.isEmpty() || endDate.isBefore(startDate)) {
+            return 0;
+        }
+
+        List<AvailabilityException> exceptions =
+                exceptionRepository.findByDoctorAndExceptionDateBetween(doctor, startDate, endDate);
+
+        Set<SlotWindow> taken = new HashSet<>();
+        for (DoctorAvailabilitySlot slot :
+                slotRepository.findByDoctorAndSlotDateBetweenOrderBySlotDateAscStartTimeAsc(doctor, startDate, endDate)) {
+            taken.add(new SlotWindow(slot.getSlotDate(), slot.getStartTime(), slot.getEndTime(), null));
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        for (SlotWindow window : plan(templates, exceptions, startDate, endDate, slotDuration)) {
+            if (taken.contains(window.withoutTemplate())) {
+                continue;
+            }
+            rows.add(new Object[]{
+                    doctor.getId(),
+                    Date.valueOf(window.date()),
+                    Time.valueOf(window.startTime()),
+                    Time.valueOf(window.endTime()),
+                    DoctorAvailabilitySlot.SlotStatus.AVAILABLE.name(),
+                    window.templateId(),
+                    now,
+                    now
+            });
+        }
+
+        int inserted = 0;
+        if (!rows.isEmpty()) {
+            int[][] counts = jdbcTemplate.batchUpdate(insertSql(), rows, BATCH_SIZE, (ps, row) -> {
+                for (int i = 0; i < row.length; i++) {
+                    ps.setObject(i + 1, row[i], COLUMN_TYPES[i]);
+                }
+            });
+            for (int[] batch : counts) {
+                for (int count : batch) {
+                    inserted += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+                }
+            }
+        }
+        return inserted;
+    }
+
+    private String insertSql() {
+        String sql = insertSql;
+        if (sql == null) {
+            sql = isPostgres() ? INSERT_SLOT_SKIP_DUPLICATES_SQL : INSERT_SLOT_SQL;
+            insertSql = sql;
+        }
+        return sql;
+    }
+
+    private boolean isPostgres() {
+        try (Connection connection = dataSource.getConnection()) {
+            return "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+        } catch (SQLException e) {
+            // Plain inserts are still safe; the unique constraint rejects duplicates
+            return false;
+        }
+    }
+
+    /**
+     * Computes the slot windows the templates produce between startDate and endDate,
+     * without touching the database. Templates are applied in the order given and a
+     * window produced by an earlier template is not repeated.
+     */
+    public List<SlotWindow> plan(List<AvailabilityTemplate> templates, List<AvailabilityException> exceptions,
+                                 LocalDate startDate, LocalDate endDate, int slotDuration) {
+        Map<LocalDate, AvailabilityException> exceptionsByDate = new HashMap<>();
+        for (AvailabilityException exception : exceptions) {
+            exceptionsByDate.putIfAbsent(exception.getExceptionDate(), exception);
+        }
+
+        Set<SlotWindow> seen = new HashSet<>();
+        List<SlotWindow> windows = new ArrayList<>();
+
+        for (AvailabilityTemplate template : templates) {
+            CompiledAvailabilityRule rule = ruleCache.ruleFor(template);
+            for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+                if (!rule.matches(date)) {
+                    continue;
+                }
+
+                LocalTime from = template.getStartTime();
+                LocalTime to = template.getEndTime();
+
+                AvailabilityException exception = exceptionsByDate.get(date);
+                if (exception != null) {
+                    if (exception.getExceptionType() == AvailabilityException.ExceptionType.UNAVAILABLE) {
+                        continue;
+                    } else if (exception.getExceptionType() == AvailabilityException.ExceptionType.CUSTOM_HOURS) {
+                        from = exception.getStartTime();
+                        to = exception.getEndTime();
+                    }
+                }
+
+                addWindowsForTimeRange(windows, seen, date, from, to, slotDuration, template.getId());
+            }
+        }
+        return windows;
+    }
+
+    private void addWindowsForTimeRange(List<SlotWindow> windows, Set<SlotWindow> seen, LocalDate date,
+                                        LocalTime startTime, LocalTime endTime, int slotDuration, Long templateId) {
+        if (startTime == null || endTime == null || slotDuration <= 0) {
+            return;
+        }
+
+        LocalTime current = startTime;
+        while (current.isBefore(endTime)) {
+            LocalTime slotEnd = current.plusMinutes(slotDuration);
+            if (slotEnd.isAfter(endTime) || !slotEnd.isAfter(current)) {
+                break;
+            }
+
+            if (seen.add(new SlotWindow(date, current, slotEnd, null))) {
+                windows.add(new SlotWindow(date, current, slotEnd, templateId));
+            }
+
+            current = slotEnd;
+        }
+    }
+
+    /**
+     * One computed slot; templateId is the template that produced it.
+     */
+    public record SlotWindow(LocalDate date, LocalTime startTime, LocalTime endTime, Long templateId) {
+
+        SlotWindow withoutTemplate() {
+            return templateId == null ? this : new SlotWindow(date, startTime, endTime, null);
+        }
+    }
+}
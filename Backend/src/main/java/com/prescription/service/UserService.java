@@ -309,6 +309,8 @@ public class UserService {
             emailChanged = true;
         }
 
+        // Set by hand: auditing is not enabled, and rendered prescriptions are revalidated against it
+        user.setUpdatedAt(LocalDateTime.now());
         User updatedUser = userRepository.saveAndFlush(user);
 
         Doctor doctor = doctorRepository.findByUserId(updatedUser.getId()).orElseGet(() -> {
@@ -366,6 +368,8 @@ public class UserService {
             emailChanged = true;
         }
 
+        // Set by hand: auditing is not enabled, and rendered prescriptions are revalidated against it
+        user.setUpdatedAt(LocalDateTime.now());
         User updatedUser = userRepository.saveAndFlush(user);
 
         Patient patient = patientRepository.findByUserId(updatedUser.getId()).orElseGet(() -> {
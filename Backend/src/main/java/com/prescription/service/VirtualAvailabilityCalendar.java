@@ -0,0 +1,161 @@
+package com.prescription.service;
+
+import com.prescription.entity.*;
+import com.prescription.repository.AppointmentRepository;
+import com.prescription.repository.AppointmentSettingsRepository;
+import com.prescription.repository.AvailabilityExceptionRepository;
+import com.prescription.repository.AvailabilityTemplateRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Computes a doctor's slots on demand from templates, exceptions and settings
+ * instead of reading materialized doctor_availability_slots rows.
+ *
+ * The template-derived calendar is cached per doctor and date and dropped whenever
+ * the doctor's templates, exceptions or settings change. Booked appointments are
+ * overlaid on every read, so only bookings themselves are persisted. Computed slots
+ * are never stored, so they have no id.
+ */
+@Component
+@Transactional(readOnly = true)
+public class VirtualAvailabilityCalendar {
+
+    @Autowired
+    private AvailabilityTemplateRepository templateRepository;
+
+    @Autowired
+    private AvailabilityExceptionRepository exceptionRepository;
+
+    @Autowired
+    private AppointmentSettingsRepository settingsRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private SlotMaterializer slotMaterializer;
+
+    @Value("${app.availability.calendar-cache.max-doctors:1000}")
+    private int maxCachedDoctors;
+
+    private final Map<Long, Map<LocalDate, List<SlotMaterializer.SlotWindow>>> calendars = new ConcurrentHashMap<>();
+
+    public List<DoctorAvailabilitySlot> getSlots(User doctor, LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            return List.of();
+        }
+
+        Map<LocalDate, List<SlotMaterializer.SlotWindow>> calendar = calendarFor(doctor.getId());
+        if (hasGap(calendar, startDate, endDate)) {
+            fill(doctor, calendar, startDate, endDate);
+        }
+
+        List<LocalDateTime> bookedTimes = appointmentRepository.findBookedTimesForDoctor(
+                doctor, startDate.atStartOfDay(), endDate.atTime(LocalTime.MAX), Appointment.Status.CANCELLED);
+        Collections.sort(bookedTimes);
+
+        List<DoctorAvailabilitySlot> slots = new ArrayList<>();
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            List<SlotMaterializer.SlotWindow> windows = calendar.getOrDefault(date, List.of());
+            for (SlotMaterializer.SlotWindow window : windows) {
+                slots.add(toSlot(doctor, window, isBooked(window, bookedTimes)));
+            }
+        }
+        slots.sort(Comparator.comparing(DoctorAvailabilitySlot::getSlotDate)
+                .thenComparing(DoctorAvailabilitySlot::getStartTime));
+        return slots;
+    }
+
+    /**
+     * Drops the doctor's cached calendar. Inside a transaction it is dropped again
+     * after commit, since a read before then can cache the old templates.
+     */
+    public void invalidate(Long doctorId) {
+        calendars.remove(doctorId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    calendars.remove(doctorId);
+                }
+            });
+        }
+    }
+
+    private Map<LocalDate, List<SlotMaterializer.SlotWindow>> calendarFor(Long doctorId) {
+        if (calendars.size() >= maxCachedDoctors && !calendars.containsKey(doctorId)) {
+            calendars.clear();
+        }
+        return calendars.computeIfAbsent(doctorId, id -> new ConcurrentHashMap<>());
+    }
+
+    private boolean hasGap(Map<LocalDate, List<SlotMaterializer.SlotWindow>> calendar,
+                           LocalDate startDate, LocalDate endDate) {
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            if (!calendar.containsKey(date)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void fill(User doctor, Map<LocalDate, List<SlotMaterializer.SlotWindow>> calendar,
+                      LocalDate startDate, LocalDate endDate) {
+        List<AvailabilityTemplate> templates = templateRepository.findByDoctorAndIsActiveOrderByPriorityDesc(doctor, true);
+        List<AvailabilityException> exceptions =
+                exceptionRepository.findByDoctorAndExceptionDateBetween(doctor, startDate, endDate);
+        int slotDuration = settingsRepository.findByDoctor(doctor)
+                .map(AppointmentSettings::getSlotDurationMinutes)
+                .orElse(30);
+
+        Map<LocalDate, List<SlotMaterializer.SlotWindow>> computed = new HashMap<>();
+        for (SlotMaterializer.SlotWindow window :
+                slotMaterializer.plan(templates, exceptions, startDate, endDate, slotDuration)) {
+            computed.computeIfAbsent(window.date(), d -> new ArrayList<>()).add(window);
+        }
+
+        // Past days are never requested again; keep the per-doctor map from growing
+        LocalDate today = LocalDate.now();
+        calendar.keySet().removeIf(date -> date.isBefore(today));
+
+        for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            calendar.put(date, List.copyOf(computed.getOrDefault(date, List.of())));
+        }
+    }
+
+    private boolean isBooked(SlotMaterializer.SlotWindow window, List<LocalDateTime> bookedTimes) {
+        LocalDateTime start = window.date().atTime(window.startTime());
+        LocalDateTime end = window.date().atTime(window.endTime());
+
+        int index = Collections.binarySearch(bookedTimes, start);
+        if (index >= 0) {
+            return true;
+        }
+        int insertion = -index - 1;
+        return insertion < bookedTimes.size() && bookedTimes.get(insertion).isBefore(end);
+    }
+
+    private DoctorAvailabilitySlot toSlot(User doctor, SlotMaterializer.SlotWindow window, boolean booked) {
+        DoctorAvailabilitySlot slot = new DoctorAvailabilitySlot();
+        slot.setDoctor(doctor);
+        slot.setSlotDate(window.date());
+        slot.setStartTime(window.startTime());
+        slot.setEndTime(window.endTime());
+        slot.setGeneratedFromTemplateId(window.templateId());
+        slot.setSlotStatus(booked
+                ? DoctorAvailabilitySlot.SlotStatus.BOOKED
+                : DoctorAvailabilitySlot.SlotStatus.AVAILABLE);
+        return slot;
+    }
+}
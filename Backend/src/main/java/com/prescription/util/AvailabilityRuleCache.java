@@ -0,0 +1,43 @@
+package com.prescription.util;
+
+import com.prescription.entity.AvailabilityTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps one {@link CompiledAvailabilityRule} per template id. A cached rule is
+ * recompiled as soon as the template's schedule columns no longer match it.
+ */
+@Component
+public class AvailabilityRuleCache {
+
+    private final Map<Long, CompiledAvailabilityRule> rules = new ConcurrentHashMap<>();
+
+    @Value("${app.availability.rule-cache.max-size:10000}")
+    private int maxSize;
+
+    public CompiledAvailabilityRule ruleFor(AvailabilityTemplate template) {
+        if (template.getId() == null) {
+            return CompiledAvailabilityRule.compile(template);
+        }
+
+        CompiledAvailabilityRule rule = rules.get(template.getId());
+        if (rule != null && rule.isCompiledFrom(template)) {
+            return rule;
+        }
+
+        rule = CompiledAvailabilityRule.compile(template);
+        if (rules.size() >= maxSize) {
+            rules.clear();
+        }
+        rules.put(template.getId(), rule);
+        return rule;
+    }
+
+    public void evict(Long templateId) {
+        rules.remove(templateId);
+    }
+}
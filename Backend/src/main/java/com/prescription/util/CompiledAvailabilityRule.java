@@ -0,0 +1,90 @@
+package com.prescription.util;
+
+import com.prescription.entity.AvailabilityTemplate;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Immutable, pre-parsed form of an {@link AvailabilityTemplate}'s schedule.
+ *
+ * Weekly days are a 7-bit mask (bit 0 = Monday), specific dates a sorted array of
+ * epoch days and date ranges a pair of epoch days, so {@link #matches(LocalDate)}
+ * does no parsing and no allocation.
+ */
+public final class CompiledAvailabilityRule {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final AvailabilityTemplate.ScheduleType scheduleType;
+    private final int dayOfWeekMask;
+    private final long[] specificEpochDays;
+    private final long rangeStart;
+    private final long rangeEnd;
+
+    // Source columns the rule was compiled from, used to detect template edits
+    private final String sourceDaysOfWeek;
+    private final String sourceSpecificDates;
+    private final LocalDate sourceStartDate;
+    private final LocalDate sourceEndDate;
+
+    private CompiledAvailabilityRule(AvailabilityTemplate template) {
+        this.scheduleType = template.getScheduleType();
+        this.sourceDaysOfWeek = template.getDaysOfWeek();
+        this.sourceSpecificDates = template.getSpecificDates();
+        this.sourceStartDate = template.getStartDate();
+        this.sourceEndDate = template.getEndDate();
+
+        int mask = 0;
+        for (Integer day : AvailabilityUtil.parseDaysOfWeek(sourceDaysOfWeek)) {
+            if (day != null && day >= 1 && day <= 7) {
+                mask |= 1 << (day - 1);
+            }
+        }
+        this.dayOfWeekMask = mask;
+
+        long[] epochDays = AvailabilityUtil.parseSpecificDates(sourceSpecificDates).stream()
+                .mapToLong(LocalDate::toEpochDay)
+                .sorted()
+                .toArray();
+        this.specificEpochDays = epochDays.length == 0 ? EMPTY : epochDays;
+
+        this.rangeStart = sourceStartDate != null ? sourceStartDate.toEpochDay() : Long.MIN_VALUE;
+        this.rangeEnd = sourceEndDate != null ? sourceEndDate.toEpochDay() : Long.MAX_VALUE;
+    }
+
+    public static CompiledAvailabilityRule compile(AvailabilityTemplate template) {
+        return new CompiledAvailabilityRule(template);
+    }
+
+    public boolean matches(LocalDate date) {
+        if (scheduleType == null) {
+            return false;
+        }
+        switch (scheduleType) {
+            case DAILY:
+                return true;
+            case WEEKLY:
+                return (dayOfWeekMask & (1 << (date.getDayOfWeek().getValue() - 1))) != 0;
+            case SPECIFIC_DATE_RANGE:
+                long epochDay = date.toEpochDay();
+                return epochDay >= rangeStart && epochDay <= rangeEnd;
+            case SPECIFIC_DATES:
+                return Arrays.binarySearch(specificEpochDays, date.toEpochDay()) >= 0;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * True if the template still has the schedule this rule was compiled from.
+     */
+    public boolean isCompiledFrom(AvailabilityTemplate template) {
+        return scheduleType == template.getScheduleType()
+                && Objects.equals(sourceDaysOfWeek, template.getDaysOfWeek())
+                && Objects.equals(sourceSpecificDates, template.getSpecificDates())
+                && Objects.equals(sourceStartDate, template.getStartDate())
+                && Objects.equals(sourceEndDate, template.getEndDate());
+    }
+}
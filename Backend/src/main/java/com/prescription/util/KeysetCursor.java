@@ -0,0 +1,44 @@
+package com.prescription.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a listing ordered by (timestamp, id), passed to clients as an opaque string.
+ */
+public record KeysetCursor(LocalDateTime position, Long id) {
+
+    /** Starting point for listings ordered newest first. */
+    public static final KeysetCursor FIRST_DESCENDING =
+            new KeysetCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    /** Starting point for listings ordered oldest first. */
+    public static final KeysetCursor FIRST_ASCENDING =
+            new KeysetCursor(LocalDateTime.of(1900, 1, 1, 0, 0), 0L);
+
+    public String encode() {
+        String raw = position + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor produced by {@link #encode()}, or returns the given starting
+     * point when the cursor is absent.
+     */
+    public static KeysetCursor decodeOr(String cursor, KeysetCursor first) {
+        if (cursor == null || cursor.isBlank()) {
+            return first;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new KeysetCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
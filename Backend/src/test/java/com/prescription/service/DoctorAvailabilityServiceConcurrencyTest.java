@@ -0,0 +1,140 @@
+package com.prescription.service;
+
+import com.prescription.entity.DoctorAvailabilitySlot;
+import com.prescription.entity.User;
+import com.prescription.repository.DoctorAvailabilitySlotRepository;
+import com.prescription.repository.UserRepository;
+import com.prescription.util.AvailabilityRuleCache;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Concurrent bookings of one slot: the conditional status update must let exactly
+ * one caller win. Runs without a test transaction so every thread commits its own.
+ */
+@DataJpaTest
+@Import(DoctorAvailabilityService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DoctorAvailabilityServiceConcurrencyTest {
+
+    private static final int BOOKERS = 8;
+
+    @Autowired
+    private DoctorAvailabilityService availabilityService;
+
+    @Autowired
+    private DoctorAvailabilitySlotRepository slotRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @MockBean
+    private SlotHorizonScheduler slotHorizonScheduler;
+
+    @MockBean
+    private VirtualAvailabilityCalendar availabilityCalendar;
+
+    @MockBean
+    private AvailabilityRuleCache ruleCache;
+
+    @AfterEach
+    void tearDown() {
+        slotRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentBookingsOfOneSlotHaveExactlyOneWinner() throws Exception {
+        User doctor = userRepository.save(User.builder()
+                .name("Dr. Test")
+                .email("doctor@test.com")
+                .passwordHash("hash")
+                .role(User.Role.DOCTOR)
+                .birthDate(LocalDate.of(1980, 1, 1))
+                .gender(User.Gender.FEMALE)
+                .build());
+
+        DoctorAvailabilitySlot slot = new DoctorAvailabilitySlot();
+        slot.setDoctor(doctor);
+        slot.setSlotDate(LocalDate.now().plusDays(1));
+        slot.setStartTime(LocalTime.of(9, 0));
+        slot.setEndTime(LocalTime.of(9, 30));
+        slot.setSlotStatus(DoctorAvailabilitySlot.SlotStatus.AVAILABLE);
+        Long slotId = slotRepository.save(slot).getId();
+
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(BOOKERS);
+        List<Future<?>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < BOOKERS; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        availabilityService.bookSlot(slotId);
+                        booked.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, booked.get());
+        assertEquals(BOOKERS - 1, rejected.get());
+        assertEquals(DoctorAvailabilitySlot.SlotStatus.BOOKED,
+                slotRepository.findById(slotId).orElseThrow().getSlotStatus());
+    }
+
+    @Test
+    void bookingATakenSlotIsRejected() {
+        User doctor = userRepository.save(User.builder()
+                .name("Dr. Second")
+                .email("second@test.com")
+                .passwordHash("hash")
+                .role(User.Role.DOCTOR)
+                .birthDate(LocalDate.of(1975, 6, 1))
+                .gender(User.Gender.MALE)
+                .build());
+
+        DoctorAvailabilitySlot slot = new DoctorAvailabilitySlot();
+        slot.setDoctor(doctor);
+        slot.setSlotDate(LocalDate.now().plusDays(2));
+        slot.setStartTime(LocalTime.of(10, 0));
+        slot.setEndTime(LocalTime.of(10, 30));
+        slot.setSlotStatus(DoctorAvailabilitySlot.SlotStatus.AVAILABLE);
+        Long slotId = slotRepository.save(slot).getId();
+
+        assertEquals(DoctorAvailabilitySlot.SlotStatus.BOOKED, availabilityService.bookSlot(slotId).getSlotStatus());
+        assertThrows(IllegalStateException.class, () -> availabilityService.bookSlot(slotId));
+        assertThrows(EntityNotFoundException.class, () -> availabilityService.bookSlot(-1L));
+    }
+}
@@ -0,0 +1,105 @@
+package com.prescription.service;
+
+import com.prescription.entity.Notification;
+import com.prescription.repository.NotificationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Retention settings parsing and chunked purges. Runs without a test transaction
+ * because the purge commits each chunk in its own.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class NotificationRetentionServiceTest {
+
+    private static final int CHUNK_SIZE = 2;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private NotificationInboxService inboxService;
+
+    @MockBean
+    private NotificationArchive archive;
+
+    @AfterEach
+    void tearDown() {
+        notificationRepository.deleteAll();
+    }
+
+    @Test
+    void malformedTtlOverridesAreRejected() {
+        for (String overrides : List.of("SYSTEM_ALERT", "SYSTEM_ALERT=1=2", "NO_SUCH_TYPE=30", "SYSTEM_ALERT=soon")) {
+            IllegalStateException e = assertThrows(IllegalStateException.class, () -> service(overrides),
+                    overrides);
+            assertTrue(e.getMessage().startsWith("Invalid app.notifications.retention.ttl-days entry"));
+        }
+    }
+
+    @Test
+    void blankAndCaseInsensitiveTtlOverridesAreAccepted() {
+        assertDoesNotThrow(() -> service(""));
+        assertDoesNotThrow(() -> service(" system_alert = 0 , ,medicine_reminder=7"));
+    }
+
+    @Test
+    void purgeAcrossChunksRemovesExpiredRowsAndAdjustsUnreadCounters() {
+        LocalDateTime expired = LocalDateTime.now().minusDays(60);
+        // Five expired rows span three chunks; unread rows fall on both sides of each boundary
+        save(1L, false, expired.plusMinutes(1));
+        save(1L, true, expired.plusMinutes(2));
+        save(2L, false, expired.plusMinutes(3));
+        save(1L, false, expired.plusMinutes(4));
+        save(2L, true, expired.plusMinutes(5));
+        Notification fresh = save(1L, false, LocalDateTime.now().minusDays(1));
+
+        Map<Long, Long> unreadDeltas = new HashMap<>();
+        doAnswer(invocation -> {
+            unreadDeltas.merge(invocation.getArgument(0), invocation.getArgument(1), Long::sum);
+            return null;
+        }).when(inboxService).onChanged(anyLong(), anyLong());
+
+        service("").purgeExpired();
+
+        assertEquals(List.of(fresh.getId()),
+                notificationRepository.findAll().stream().map(Notification::getId).toList());
+        assertEquals(-2L, unreadDeltas.get(1L));
+        assertEquals(-1L, unreadDeltas.get(2L));
+    }
+
+    private NotificationRetentionService service(String ttlOverrides) {
+        return new NotificationRetentionService(notificationRepository, inboxService, archive, transactionManager,
+                new SimpleMeterRegistry(), 30, ttlOverrides, CHUNK_SIZE, 0);
+    }
+
+    private Notification save(Long userId, boolean read, LocalDateTime createdAt) {
+        return notificationRepository.save(Notification.builder()
+                .userId(userId)
+                .title("Reminder")
+                .type(Notification.NotificationType.SYSTEM_ALERT)
+                .isRead(read)
+                .createdAt(createdAt)
+                .build());
+    }
+}
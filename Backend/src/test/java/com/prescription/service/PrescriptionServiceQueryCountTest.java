@@ -0,0 +1,189 @@
+package com.prescription.service;
+
+import com.prescription.dto.CursorPage;
+import com.prescription.dto.MedicineTimingCreateDto;
+import com.prescription.dto.PrescriptionCreateDto;
+import com.prescription.dto.PrescriptionDto;
+import com.prescription.dto.PrescriptionMedicineCreateDto;
+import com.prescription.entity.Medicine;
+import com.prescription.entity.MedicineGeneric;
+import com.prescription.entity.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the JDBC statements prescription writes and reads prepare, using Hibernate
+ * statistics, to check that the count does not grow with the number of line items.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({PrescriptionService.class, MedicineCatalogueCache.class})
+class PrescriptionServiceQueryCountTest {
+
+    private static final int MEDICINES = 5;
+
+    @TestConfiguration
+    static class MetricsConfig {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private PrescriptionService prescriptionService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private UserService userService;
+
+    @MockBean
+    private MedicineService medicineService;
+
+    @MockBean
+    private DoctorDashboardCounterService dashboardCounterService;
+
+    private Long doctorId;
+    private Long patientId;
+    private final List<Long> medicineIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        doctorId = entityManager.persist(user("Dr. Count", "count.doctor@test.com", User.Role.DOCTOR)).getId();
+        patientId = entityManager.persist(user("Pat Count", "count.patient@test.com", User.Role.PATIENT)).getId();
+
+        MedicineGeneric generic = new MedicineGeneric("Countamol", "Analgesic", null);
+        generic.setCreatedAt(LocalDateTime.now());
+        generic.setUpdatedAt(LocalDateTime.now());
+        entityManager.persist(generic);
+
+        medicineIds.clear();
+        for (int i = 0; i < MEDICINES; i++) {
+            Medicine medicine = new Medicine("Brand " + i, "500mg", Medicine.Form.TABLET, generic, BigDecimal.TEN);
+            medicineIds.add(entityManager.persist(medicine).getId());
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void createPrescriptionPreparesTheSameStatementsForOneOrManyLineItems() {
+        // Warm the pooled sequences and the catalogue cache
+        prescriptionService.createPrescription(prescription(medicineIds), doctorId);
+        entityManager.flush();
+        entityManager.clear();
+
+        long single = countStatements(() -> {
+            prescriptionService.createPrescription(prescription(medicineIds.subList(0, 1)), doctorId);
+            entityManager.flush();
+        });
+        entityManager.clear();
+
+        long many = countStatements(() -> {
+            prescriptionService.createPrescription(prescription(medicineIds), doctorId);
+            entityManager.flush();
+        });
+
+        // Doctor and patient lookups, then one batched insert each for prescriptions,
+        // line items and timings
+        assertEquals(single, many);
+        assertTrue(many <= 5, "createPrescription prepared " + many + " statements");
+    }
+
+    @Test
+    void doctorPagePreparesTheSameStatementsForAnyPageSize() {
+        for (int i = 0; i < MEDICINES; i++) {
+            prescriptionService.createPrescription(prescription(medicineIds.subList(0, i + 1)), doctorId);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        // Warm the catalogue cache
+        prescriptionService.getPrescriptionsByDoctor(doctorId, null, MEDICINES);
+        entityManager.clear();
+
+        long small = countStatements(() -> {
+            CursorPage<PrescriptionDto> page = prescriptionService.getPrescriptionsByDoctor(doctorId, null, 1);
+            assertEquals(1, page.getItems().size());
+        });
+        entityManager.clear();
+
+        long large = countStatements(() -> {
+            CursorPage<PrescriptionDto> page = prescriptionService.getPrescriptionsByDoctor(doctorId, null, 4);
+            assertEquals(4, page.getItems().size());
+            assertNotNull(page.getNextCursor());
+        });
+
+        // The keyset page with doctor and patient, then line items and timings for the page
+        assertEquals(small, large);
+        assertTrue(large <= 3, "one page prepared " + large + " statements");
+    }
+
+    private long countStatements(Runnable action) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private PrescriptionCreateDto prescription(List<Long> ids) {
+        List<PrescriptionMedicineCreateDto> medicines = new ArrayList<>();
+        for (Long id : ids) {
+            MedicineTimingCreateDto morning = new MedicineTimingCreateDto();
+            morning.setMealRelation("AFTER_MEAL");
+            morning.setTimeOfDay("MORNING");
+            morning.setAmount(BigDecimal.ONE);
+
+            MedicineTimingCreateDto night = new MedicineTimingCreateDto();
+            night.setMealRelation("AFTER_MEAL");
+            night.setTimeOfDay("NIGHT");
+            night.setAmount(BigDecimal.ONE);
+
+            PrescriptionMedicineCreateDto medicine = new PrescriptionMedicineCreateDto();
+            medicine.setMedicineId(id);
+            medicine.setDurationDays(7);
+            medicine.setTimings(List.of(morning, night));
+            medicines.add(medicine);
+        }
+
+        PrescriptionCreateDto dto = new PrescriptionCreateDto();
+        dto.setDiagnosis("Headache");
+        dto.setPatientId(patientId);
+        dto.setMedicines(medicines);
+        return dto;
+    }
+
+    private static User user(String name, String email, User.Role role) {
+        return User.builder()
+                .name(name)
+                .email(email)
+                .passwordHash("hash")
+                .role(role)
+                .birthDate(LocalDate.of(1985, 3, 15))
+                .gender(User.Gender.OTHER)
+                .build();
+    }
+}